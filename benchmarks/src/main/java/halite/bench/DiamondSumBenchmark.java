@@ -0,0 +1,147 @@
+package halite.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import halite.hlt.Constants;
+import halite.hlt.DiamondSum;
+import halite.hlt.GameMap;
+import halite.hlt.MapCell;
+
+/**
+ * The surrounding halite of every cell of the map, summed by {@link DiamondSum}
+ * and by a {@link GameMap#getCircle} scan of every cell, as MyBot did before.
+ *
+ * Before measuring, {@link #setUp} checks that both give the same sums, and
+ * that the surrounding halite and ship counts the GameMap maintains match a
+ * getCircle scan; a mismatch fails the benchmark. {@link #main} runs only the
+ * check, over every state the benchmarks use.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class DiamondSumBenchmark {
+	/** The largest radius checked directly against getCircle. */
+	private static final int MAX_RADIUS = 8;
+
+	private DiamondSum diamondSum;
+	private int[] sums;
+
+	@Setup(Level.Trial)
+	public void setUp(final GameState state) {
+		check(state);
+		diamondSum = new DiamondSum(state.gameMap.width, state.gameMap.height);
+		sums = new int[state.gameMap.size()];
+	}
+
+	@Benchmark
+	public int[] diamondSum(final GameState state) {
+		diamondSum.sum(state.gameMap.halite, Constants.INSPIRATION_RADIUS, sums);
+		return sums;
+	}
+
+	@Benchmark
+	public int[] getCircle(final GameState state) {
+		final GameMap gameMap = state.gameMap;
+		for (int i = 0; i < sums.length; i++) {
+			int total = 0;
+			for (final MapCell c : gameMap.getCircle(gameMap.cellAt[i].position, Constants.INSPIRATION_RADIUS)) {
+				total += c.getHalite();
+			}
+			sums[i] = total;
+		}
+		return sums;
+	}
+
+	/**
+	 * Checks a state's sums against getCircle: DiamondSum over the halite for
+	 * every radius that fits the map (up to {@link #MAX_RADIUS}), and the
+	 * GameMap's surrounding halite and ship counts for the radii MyBot uses.
+	 *
+	 * @param state
+	 * @throws IllegalStateException if any sum doesn't match.
+	 */
+	public static void check(final GameState state) {
+		final GameMap gameMap = state.gameMap;
+		final DiamondSum diamondSum = new DiamondSum(gameMap.width, gameMap.height);
+		final int[] sums = new int[gameMap.size()];
+		final int maxRadius = Math.min(MAX_RADIUS, (Math.min(gameMap.width, gameMap.height) - 1) / 2);
+		for (int radius = 0; radius <= maxRadius; radius++) {
+			diamondSum.sum(gameMap.halite, radius, sums);
+			for (int i = 0; i < sums.length; i++) {
+				final int[] counts = circleCounts(state, i, radius);
+				if (sums[i] != counts[0]) {
+					throw new IllegalStateException(String.format("Radius %d halite at %s: DiamondSum %d, getCircle %d",
+							radius, gameMap.cellAt[i], sums[i], counts[0]));
+				}
+			}
+		}
+
+		for (final int radius : new int[] { Constants.INSPIRATION_RADIUS, state.nearbyRadius() }) {
+			for (int i = 0; i < sums.length; i++) {
+				final int[] counts = circleCounts(state, i, radius);
+				if ((radius == gameMap.surroundingRadius && gameMap.surroundingHalite[i] != counts[0])
+						|| gameMap.alliesWithin(i, radius) != counts[1] || gameMap.enemiesWithin(i, radius) != counts[2]) {
+					throw new IllegalStateException(
+							String.format("Radius %d counts at %s don't match getCircle", radius, gameMap.cellAt[i]));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return - The halite, allied ships and enemy ships within the radius of the
+	 *         cell, by getCircle.
+	 */
+	private static int[] circleCounts(final GameState state, final int cell, final int radius) {
+		final int[] counts = new int[3];
+		for (final MapCell c : state.gameMap.getCircle(state.gameMap.cellAt[cell].position, radius)) {
+			counts[0] += c.getHalite();
+			if (!c.isOccupied()) {
+				continue;
+			} else if (c.ship.belongsTo(state.me)) {
+				counts[1]++;
+			} else {
+				counts[2]++;
+			}
+		}
+		return counts;
+	}
+
+	/**
+	 * Runs {@link #check} over the states of every combination of the
+	 * benchmarks' parameters, without measuring anything.
+	 *
+	 * @param args
+	 */
+	public static void main(final String[] args) {
+		for (final int size : new int[] { 32, 40, 48, 56, 64 }) {
+			for (final int players : new int[] { 2, 4 }) {
+				for (final int ships : new int[] { 10, 50, 200 }) {
+					final GameState state = new GameState();
+					state.size = size;
+					state.players = players;
+					state.ships = ships;
+					state.setUp();
+					check(state);
+					System.out.printf("%dx%d, %d players, %d ships: sums match getCircle%n", size, size, players,
+							ships);
+				}
+			}
+		}
+	}
+}
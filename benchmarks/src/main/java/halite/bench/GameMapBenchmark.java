@@ -0,0 +1,118 @@
+package halite.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import halite.hlt.Command;
+import halite.hlt.Constants;
+import halite.hlt.Direction;
+import halite.hlt.NavigationUndo;
+import halite.hlt.Position;
+import halite.hlt.Ship;
+import halite.hlt.ShipState;
+import halite.hlt.ShipStates;
+import halite.hlt.TurnBudget;
+
+/**
+ * The GameMap calls MyBot makes for its ships every turn. Each operation makes
+ * the call once for every one of player 0's ships, so the scores are per turn.
+ *
+ * Navigating marks the ships as moved and the cells as taken, so
+ * {@link #navigate} undoes that with a {@link NavigationUndo} before
+ * navigating, which costs far less than reading the frame again. The
+ * {@link #undo} benchmark measures the undo alone, to be taken off the
+ * navigate score. (Undoing in a per-invocation setup would leave it out, but
+ * JMH's timing of each call would swamp an operation this short.)
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameMapBenchmark {
+	/**
+	 * The ships' moves towards their targets, to be navigated from the frame.
+	 */
+	@State(Scope.Thread)
+	public static class Moves {
+		final Map<Ship, Direction> shipPaths = new HashMap<>();
+		final ShipStates shipStates = new ShipStates(false);
+		final TurnBudget budget = new TurnBudget();
+		final List<Command> commands = new ArrayList<>();
+		NavigationUndo undo;
+
+		@Setup(Level.Trial)
+		public void setUp(final GameState state) {
+			budget.setTurnLimit(Double.POSITIVE_INFINITY);
+			for (int s = 0; s < state.myShips.size(); s++) {
+				final Ship ship = state.myShips.get(s);
+				shipPaths.put(ship, state.gameMap.getDirection(state.gameMap.index(ship.position), state.targets[s], false));
+				shipStates.set(ship, ShipState.EXPLORING);
+			}
+			undo = new NavigationUndo(state.gameMap, state.myShips);
+		}
+
+		/**
+		 * Starts the turn again from the frame.
+		 */
+		void reset() {
+			undo.undo();
+			commands.clear();
+			budget.startTurn(System.nanoTime());
+		}
+	}
+
+	@Benchmark
+	public void getCircle(final GameState state, final Blackhole blackhole) {
+		for (final Ship ship : state.myShips) {
+			blackhole.consume(state.gameMap.getCircle(ship.position, Constants.INSPIRATION_RADIUS));
+		}
+	}
+
+	@Benchmark
+	public int calculateDistance(final GameState state) {
+		int total = 0;
+		for (int s = 0; s < state.myShips.size(); s++) {
+			final Position target = state.gameMap.at(state.targets[s]).position;
+			total += state.gameMap.calculateDistance(state.myShips.get(s).position, target);
+		}
+		return total;
+	}
+
+	@Benchmark
+	public void getDirection(final GameState state, final Blackhole blackhole) {
+		for (int s = 0; s < state.myShips.size(); s++) {
+			final int start = state.gameMap.index(state.myShips.get(s).position);
+			blackhole.consume(state.gameMap.getDirection(start, state.targets[s], false));
+		}
+	}
+
+	@Benchmark
+	public List<Command> undo(final Moves moves) {
+		moves.reset();
+		return moves.commands;
+	}
+
+	@Benchmark
+	public List<Command> navigate(final GameState state, final Moves moves) {
+		moves.reset();
+		state.gameMap.navigate(moves.shipPaths, moves.shipStates, moves.budget, moves.commands);
+		return moves.commands;
+	}
+}
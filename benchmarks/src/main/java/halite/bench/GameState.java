@@ -0,0 +1,148 @@
+package halite.bench;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import halite.hlt.Constants;
+import halite.hlt.Game;
+import halite.hlt.GameMap;
+import halite.hlt.Input;
+import halite.hlt.Log;
+import halite.hlt.Output;
+import halite.hlt.Player;
+import halite.hlt.Ship;
+
+/**
+ * A game in the middle of a turn, from player 0's side: a {@link ScriptedGame}
+ * frame read into a {@link Game}, with the per-cell data MyBot computes before
+ * scoring filled in, and a random target cell for each of player 0's ships.
+ *
+ * {@link #refresh()} reads the same frame again, which undoes anything a
+ * benchmark did to the ships and cells.
+ */
+@State(Scope.Thread)
+public class GameState {
+	/** The seed of every map and script. */
+	public static final long SEED = 42;
+	/** How many frames the script plays past the benchmarked one. */
+	public static final int TURNS = 20;
+
+	@Param({ "32", "64" })
+	public int size;
+
+	@Param({ "2", "4" })
+	public int players;
+
+	/** The ships on the map, over all players. */
+	@Param({ "10", "200" })
+	public int ships;
+
+	public ScriptedGame script;
+	public Game game;
+	public GameMap gameMap;
+	public Player me;
+	/** Player 0's ships, by id. */
+	public final List<Ship> myShips = new ArrayList<>();
+	/** A target cell for each of myShips. */
+	public int[] targets;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		Log.disable();
+		script = new ScriptedGame(size, players, ships, TURNS, SEED);
+		game = new Game(false, false, new Input(new RepeatingStream(script.init, script.frames.get(0)), false),
+				new Output(NULL));
+		gameMap = game.gameMap;
+		me = game.me;
+		gameMap.trackOccupancy(Constants.INSPIRATION_RADIUS);
+		gameMap.trackOccupancy(nearbyRadius());
+		refresh();
+
+		myShips.addAll(me.ships.values());
+		myShips.sort(Comparator.comparingInt(ship -> ship.id.id));
+		final Random random = new Random(SEED);
+		targets = new int[myShips.size()];
+		for (int s = 0; s < targets.length; s++) {
+			targets[s] = random.nextInt(gameMap.size());
+		}
+	}
+
+	/**
+	 * Reads the frame again and recomputes the per-cell data.
+	 */
+	public void refresh() {
+		game.updateFrame();
+		final int radius = nearbyRadius();
+		for (int i = 0; i < gameMap.size(); i++) {
+			final int inspiringEnemies = gameMap.enemiesWithin(i, Constants.INSPIRATION_RADIUS);
+			final boolean inspired = inspiringEnemies >= Constants.INSPIRATION_SHIP_COUNT;
+			gameMap.mineableHaliteThisTurn[i] = ((gameMap.halite[i] + 3) / 4) * (inspired ? 3 : 1);
+			gameMap.inspirationEnabled[i] = inspired;
+			gameMap.numNearbyAllies[i] = (short) gameMap.alliesWithin(i, radius);
+			gameMap.numNearbyEnemies[i] = (short) gameMap.enemiesWithin(i, radius);
+		}
+	}
+
+	/**
+	 * @return - The radius MyBot counts nearby ships in.
+	 */
+	public int nearbyRadius() {
+		return players == 2 ? 6 : 4;
+	}
+
+	static final OutputStream NULL = new OutputStream() {
+		@Override
+		public void write(final int b) {
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+		}
+	};
+
+	/**
+	 * The init message, then the same frame over and over.
+	 */
+	private static final class RepeatingStream extends InputStream {
+		private final byte[] init;
+		private final byte[] frame;
+		private byte[] current;
+		private int position;
+
+		RepeatingStream(final String init, final String frame) {
+			this.init = (init + "\n").getBytes(StandardCharsets.US_ASCII);
+			this.frame = (frame + "\n").getBytes(StandardCharsets.US_ASCII);
+			this.current = this.init;
+		}
+
+		@Override
+		public int read() {
+			final byte[] b = new byte[1];
+			read(b, 0, 1);
+			return b[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) {
+			if (position == current.length) {
+				current = frame;
+				position = 0;
+			}
+			final int n = Math.min(len, current.length - position);
+			System.arraycopy(current, position, b, off, n);
+			position += n;
+			return n;
+		}
+	}
+}
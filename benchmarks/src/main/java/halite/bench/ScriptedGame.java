@@ -0,0 +1,242 @@
+package halite.bench;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import halite.sim.Rules;
+import halite.sim.Simulator;
+
+/**
+ * A fixed-seed game played by a script instead of bots, to produce realistic
+ * game states with a chosen number of ships.
+ *
+ * Every player spawns a ship whenever its shipyard is free until it has its
+ * share of the ships, and every ship mostly heads one way (chosen by its id),
+ * sometimes turns and sometimes stops to mine. Ships keep clear of their own
+ * ships, of enemy ships and of what those could move to, and of the enemy
+ * shipyards, so none are lost. The banks start large enough for all the
+ * spawns.
+ */
+public final class ScriptedGame {
+	private static final char[] DIRECTIONS = { 'n', 'e', 's', 'w' };
+	private static final int[] DX = { 0, 1, 0, -1 };
+	private static final int[] DY = { -1, 0, 1, 0 };
+
+	/** The constants, players and map, as seen by player 0. */
+	public final String init;
+	/**
+	 * The frame the ships first reached their count on (give or take one per
+	 * player), followed by the frames of the turns after it.
+	 */
+	public final List<String> frames = new ArrayList<>();
+
+	/**
+	 * @param size    - The width and height of the map.
+	 * @param players - 2 or 4.
+	 * @param ships   - The number of ships, over all players.
+	 * @param turns   - How many more frames to play once the ships are out.
+	 * @param seed    - The seed of the map and of the script.
+	 */
+	public ScriptedGame(final int size, final int players, final int ships, final int turns, final long seed) {
+		final Rules rules = new Rules(size, size);
+		rules.initialHalite = ships * rules.shipCost;
+		final Simulator simulator = new Simulator(rules, players, seed);
+		init = simulator.initMessage(0);
+		final Random random = new Random(seed);
+		final int shipsPerPlayer = (ships + players - 1) / players;
+		final int[] shipyards = shipyards(init, players);
+		final String[] commands = new String[players];
+		final int[] halite = map(init, players, size);
+		// The cells changed since the start.
+		final boolean[] changed = new boolean[size * size];
+		while (frames.size() <= turns && !simulator.isOver()) {
+			final String frame = simulator.frame();
+			final Frame parsed = new Frame(frame, players, size);
+			parsed.apply(halite, changed, size);
+			if (!frames.isEmpty()) {
+				frames.add(frame);
+			} else if (parsed.ships >= ships - players) {
+				// Frames only hold the cells changed since the last one: the first frame
+				// kept has to hold every cell changed since the start.
+				frames.add(parsed.withUpdates(halite, changed, size));
+			}
+			for (int p = 0; p < players; p++) {
+				commands[p] = commands(parsed, p, size, halite, shipyards, shipsPerPlayer, random);
+			}
+			simulator.step(commands);
+		}
+		if (frames.isEmpty()) {
+			throw new IllegalStateException(String.format("%d ships never fit on a %dx%d map", ships, size, size));
+		}
+	}
+
+	/**
+	 * @return - The init message followed by every frame, as the engine would send
+	 *         them to player 0.
+	 */
+	public byte[] transcript() {
+		return transcript(frames.size());
+	}
+
+	/**
+	 * @param frameCount - How many of the frames to include.
+	 * @return - The init message followed by the first frames.
+	 */
+	public byte[] transcript(final int frameCount) {
+		final StringBuilder s = new StringBuilder(init).append('\n');
+		for (int f = 0; f < frameCount; f++) {
+			s.append(frames.get(f)).append('\n');
+		}
+		return s.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+
+	private static String commands(final Frame frame, final int player, final int size, final int[] halite,
+			final int[] shipyards, final int shipsPerPlayer, final Random random) {
+		final StringBuilder commands = new StringBuilder();
+		// The cells the player's ships will be on after this turn.
+		final boolean[] claimed = new boolean[size * size];
+		final int[][] ships = frame.ships(player);
+		for (final int[] ship : ships) {
+			claimed[ship[1]] = true;
+		}
+		// The cells an enemy ship is on or might move to, and the enemy shipyards.
+		final boolean[] blocked = new boolean[size * size];
+		for (int p = 0; p < shipyards.length; p++) {
+			if (p == player) {
+				continue;
+			}
+			blocked[shipyards[p]] = true;
+			for (final int[] ship : frame.ships(p)) {
+				blocked[ship[1]] = true;
+				for (int d = 0; d < DIRECTIONS.length; d++) {
+					blocked[neighbor(ship[1], d, size)] = true;
+				}
+			}
+		}
+		for (final int[] ship : ships) {
+			final double roll = random.nextDouble();
+			// Ships that can't pay to move stay and mine, but the shipyard is kept clear.
+			if ((roll < 0.2 && ship[1] != shipyards[player]) || ship[2] < halite[ship[1]] / 10) {
+				continue;
+			}
+			// Try the chosen way first, then the others.
+			final int first = roll < 0.8 ? ship[0] % 4 : random.nextInt(4);
+			for (int turn = 0; turn < DIRECTIONS.length; turn++) {
+				final int d = (first + turn) % DIRECTIONS.length;
+				final int target = neighbor(ship[1], d, size);
+				if (!claimed[target] && !blocked[target]) {
+					claimed[ship[1]] = false;
+					claimed[target] = true;
+					commands.append("m ").append(ship[0]).append(' ').append(DIRECTIONS[d]).append(' ');
+					break;
+				}
+			}
+		}
+		if (ships.length < shipsPerPlayer && !claimed[shipyards[player]]) {
+			commands.append('g');
+		}
+		return commands.toString().trim();
+	}
+
+	private static int neighbor(final int cell, final int direction, final int size) {
+		final int x = Math.floorMod(cell % size + DX[direction], size);
+		final int y = Math.floorMod(cell / size + DY[direction], size);
+		return y * size + x;
+	}
+
+	/**
+	 * @return - The halite of every cell at the start.
+	 */
+	private static int[] map(final String init, final int players, final int size) {
+		final String[] lines = init.split("\n");
+		final int[] halite = new int[size * size];
+		for (int y = 0; y < size; y++) {
+			final String[] values = lines[3 + players + y].split(" ");
+			for (int x = 0; x < size; x++) {
+				halite[y * size + x] = Integer.parseInt(values[x]);
+			}
+		}
+		return halite;
+	}
+
+	private static int[] shipyards(final String init, final int players) {
+		final String[] lines = init.split("\n");
+		// The line after the shipyards holds the width and height.
+		final int size = Integer.parseInt(lines[2 + players].split(" ")[0]);
+		final int[] shipyards = new int[players];
+		for (int p = 0; p < players; p++) {
+			final String[] parts = lines[2 + p].split(" ");
+			shipyards[p] = Integer.parseInt(parts[2]) * size + Integer.parseInt(parts[1]);
+		}
+		return shipyards;
+	}
+
+	/**
+	 * The ships of a frame: {id, cell, halite} per ship, by player.
+	 */
+	private static final class Frame {
+		final List<int[][]> byPlayer = new ArrayList<>();
+		int ships;
+		/** The players' lines. */
+		final String header;
+		/** {x, y, halite} per changed cell. */
+		final int[][] updates;
+
+		Frame(final String frame, final int players, final int size) {
+			final String[] lines = frame.split("\n");
+			// The first line is the turn number.
+			int line = 1;
+			for (int p = 0; p < players; p++) {
+				final String[] header = lines[line++].split(" ");
+				final int count = Integer.parseInt(header[1]);
+				final int dropoffs = Integer.parseInt(header[2]);
+				final int[][] playerShips = new int[count][];
+				for (int s = 0; s < count; s++) {
+					final String[] parts = lines[line++].split(" ");
+					playerShips[s] = new int[] { Integer.parseInt(parts[0]),
+							Integer.parseInt(parts[2]) * size + Integer.parseInt(parts[1]), Integer.parseInt(parts[3]) };
+				}
+				line += dropoffs;
+				byPlayer.add(playerShips);
+				ships += count;
+			}
+			header = String.join("\n", Arrays.copyOfRange(lines, 0, line));
+			updates = new int[Integer.parseInt(lines[line++])][];
+			for (int u = 0; u < updates.length; u++) {
+				final String[] parts = lines[line++].split(" ");
+				updates[u] = new int[] { Integer.parseInt(parts[0]), Integer.parseInt(parts[1]),
+						Integer.parseInt(parts[2]) };
+			}
+		}
+
+		void apply(final int[] halite, final boolean[] changed, final int size) {
+			for (final int[] update : updates) {
+				final int cell = update[1] * size + update[0];
+				halite[cell] = update[2];
+				changed[cell] = true;
+			}
+		}
+
+		/**
+		 * @return - The frame, listing every cell changed since the start.
+		 */
+		String withUpdates(final int[] halite, final boolean[] changed, final int size) {
+			int count = 0;
+			final StringBuilder cells = new StringBuilder();
+			for (int i = 0; i < changed.length; i++) {
+				if (changed[i]) {
+					count++;
+					cells.append('\n').append(i % size).append(' ').append(i / size).append(' ').append(halite[i]);
+				}
+			}
+			return header + '\n' + count + cells;
+		}
+
+		int[][] ships(final int player) {
+			return byPlayer.get(player);
+		}
+	}
+}
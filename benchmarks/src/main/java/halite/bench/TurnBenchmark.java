@@ -0,0 +1,59 @@
+package halite.bench;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import halite.bot.MyBot;
+import halite.hlt.Input;
+import halite.hlt.Output;
+
+/**
+ * Whole MyBot turns: the bot is fed the {@link ScriptedGame}'s init message and
+ * its {@link GameState#TURNS} frames, and its commands are thrown away.
+ *
+ * MyBot can only be started from the init message, so {@link #turns} includes
+ * the pre-game work (spread over the turns); {@link #init} measures that work
+ * alone, so that it can be taken off: turn = turns - init / TURNS.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TurnBenchmark {
+	private static final String[] ARGS = {};
+
+	private byte[] init;
+	private byte[] game;
+
+	@Setup(Level.Trial)
+	public void setUp(final GameState state) {
+		init = state.script.transcript(0);
+		game = state.script.transcript();
+	}
+
+	@Benchmark
+	public void init() {
+		MyBot.play(ARGS, new Input(new ByteArrayInputStream(init), false), new Output(GameState.NULL));
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(GameState.TURNS)
+	public void turns() {
+		MyBot.play(ARGS, new Input(new ByteArrayInputStream(game), false), new Output(GameState.NULL));
+	}
+}
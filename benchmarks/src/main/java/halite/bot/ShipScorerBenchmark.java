@@ -0,0 +1,60 @@
+package halite.bot;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import halite.bench.GameState;
+import halite.hlt.Constants;
+
+/**
+ * MyBot's scoring loop: every cell of the map scored for every one of player
+ * 0's ships, keeping (ships + 1) candidates each, as in a turn.
+ *
+ * It lives in halite.bot because ShipScorer is package-private.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShipScorerBenchmark {
+	/** The threads MyBot scores on (its --threads option). */
+	@Param({ "1" })
+	public int threads;
+
+	private ShipScorer scorer;
+	private int[] distToBase;
+
+	@Setup(Level.Trial)
+	public void setUp(final GameState state) {
+		scorer = new ShipScorer(threads);
+		distToBase = state.gameMap.blendFutureDropoffs(Collections.emptyList());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		scorer.close();
+	}
+
+	@Benchmark
+	public TopK score(final GameState state) {
+		scorer.score(state.gameMap, state.me, state.players == 2, Constants.INSPIRATION_RADIUS, distToBase,
+				state.myShips, state.myShips.size() + 1, System.nanoTime() + TimeUnit.HOURS.toNanos(1));
+		return scorer.result(0);
+	}
+}
@@ -0,0 +1,43 @@
+package halite.hlt;
+
+import java.util.List;
+
+/**
+ * Undoes {@link GameMap#navigate}: puts the ships back on the cells they were
+ * on and marks them as not moved, without reading the frame again.
+ *
+ * It lives in halite.hlt because a ship's move can only be reset from there.
+ */
+public class NavigationUndo {
+	private final GameMap gameMap;
+	private final List<Ship> ships;
+	private final Ship[] occupants;
+
+	/**
+	 * Remembers which ship is on every cell.
+	 *
+	 * @param gameMap
+	 * @param ships   - The ships navigate will move.
+	 */
+	public NavigationUndo(final GameMap gameMap, final List<Ship> ships) {
+		this.gameMap = gameMap;
+		this.ships = ships;
+		this.occupants = new Ship[gameMap.size()];
+		for (int i = 0; i < occupants.length; i++) {
+			occupants[i] = gameMap.cellAt[i].ship;
+		}
+	}
+
+	/**
+	 * Puts the map and the ships back as they were when this was made.
+	 */
+	public void undo() {
+		for (int i = 0; i < occupants.length; i++) {
+			gameMap.cellAt[i].ship = occupants[i];
+		}
+		for (int s = 0; s < ships.size(); s++) {
+			final Ship ship = ships.get(s);
+			ship._update(ship.position, ship.halite);
+		}
+	}
+}
@@ -3,505 +3,610 @@ package halite.bot;
 import static halite.hlt.Constants.MAX_HALITE;
 import static halite.hlt.Constants.SHIP_COST;
 import static halite.hlt.Direction.STILL;
-import static java.util.Comparator.comparing;
-import static java.util.Optional.ofNullable;
-
+import static halite.hlt.ShipState.EXPLORING;
+import static halite.hlt.ShipState.FINAL_RUSH;
+import static halite.hlt.ShipState.MAKE_DROPOFF;
+import static halite.hlt.ShipState.MINING;
+import static halite.hlt.ShipState.RETURNING;
+import static halite.hlt.ShipState.WAITING_TO_CONSTRUCT;
+import static java.util.Comparator.comparingDouble;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
 
+import halite.hlt.AllocationMeter;
 import halite.hlt.Command;
 import halite.hlt.Constants;
 import halite.hlt.Direction;
-import halite.hlt.Entity;
-import halite.hlt.EntityId;
 import halite.hlt.F_Log;
 import halite.hlt.Game;
 import halite.hlt.GameMap;
+import halite.hlt.Input;
 import halite.hlt.Log;
+import halite.hlt.Log.Category;
+import halite.hlt.Log.Level;
 import halite.hlt.MapCell;
+import halite.hlt.Output;
 import halite.hlt.Player;
 import halite.hlt.Position;
 import halite.hlt.Ship;
+import halite.hlt.ShipStates;
+import halite.hlt.StableSort;
+import halite.hlt.Transcript;
+import halite.hlt.TurnArena;
+import halite.hlt.TurnBudget;
+import halite.hlt.TurnBudget.Phase;
 
 public class MyBot {
 	public static void main(final String[] args) {
-		// IGNORE_PERCENT is the percentage of a cell's maximum halite that will be left
-		// on the ground.
-		double IGNORE_PERCENT = 0.055;
+		play(args, new Input(System.in), new Output(new FileOutputStream(FileDescriptor.out)));
+		Log.log("Input connection from server closed. Exiting...");
+	}
+
+	/**
+	 * Plays a whole game against the engine at the other end of the given streams
+	 * (the real one, or the simulator). Returns once the engine closes the input
+	 * after the last turn.
+	 *
+	 * @param args   - The bot's command line options.
+	 * @param input  - The engine's messages.
+	 * @param output - The bot's messages to the engine.
+	 */
+	public static void play(final String[] args, final Input input, final Output output) {
 		boolean debug = false;
 		boolean local = false;
-		for (final String arg : args) {
+		// The number of threads used to score cells for the ships.
+		int threads = 1;
+		// Every phase of a turn stops early once its share of the turn is used up.
+		final TurnBudget budget = new TurnBudget();
+		boolean turnLimitSet = false;
+		boolean logLevelSet = false;
+		// A turn allocating more than this once the game has warmed up is logged as a
+		// warning (never fatal, even with --debug), or -1 for no limit.
+		long allocationBudget = -1;
+		// Where to look for the tuned parameter files (null: the classpath), and
+		// single parameters to override on top of them.
+		String paramsDir = null;
+		final List<String> paramOverrides = new ArrayList<>();
+		// The file to record the engine's messages to, for replaying the game later.
+		String transcriptPath = null;
+		for (int a = 0; a < args.length; a++) {
+			final String arg = args[a];
 			if (arg.equals("--debug")) {
 				debug = true;
 			} else if (arg.equals("--local")) {
 				local = true;
+			} else if (arg.equals("--threads")) {
+				threads = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--turn-limit")) {
+				budget.setTurnLimit(Double.parseDouble(args[++a]));
+				turnLimitSet = true;
+			} else if (arg.equals("--phase-limit")) {
+				budget.setAllotment(args[++a]);
+			} else if (arg.equals("--log-level")) {
+				Log.setLevel(args[++a]);
+				logLevelSet = true;
+			} else if (arg.equals("--log-categories")) {
+				Log.setCategories(args[++a]);
+			} else if (arg.equals("--alloc-budget")) {
+				allocationBudget = Long.parseLong(args[++a]);
+			} else if (arg.equals("--params")) {
+				paramsDir = args[++a];
+			} else if (arg.equals("--param")) {
+				paramOverrides.add(args[++a]);
+			} else if (arg.equals("--record")) {
+				transcriptPath = args[++a];
 			}
 		}
+		// Don't time out turns while debugging, unless asked to.
+		if (debug && !turnLimitSet) {
+			budget.setTurnLimit(Double.POSITIVE_INFINITY);
+		}
+		if (debug && !logLevelSet) {
+			Log.setLevel(Level.DEBUG);
+		}
 
-		Game game = new Game(debug, local);
+		if (transcriptPath != null) {
+			try {
+				input.record(Transcript.create(transcriptPath));
+			} catch (final IOException e) {
+				throw new IllegalStateException("Could not create " + transcriptPath, e);
+			}
+		}
+
+		Game game = new Game(debug, local, input, output);
 		boolean is2p = game.players.size() == 2;
 
 		// Calculate the maximum number of turns that can be played for the map size.
 		int maxTurns = 300 + (25 * game.gameMap.width / 8);
 
-		// Spawning / construction magic numbers
-		final int minDropoffTurn;
-		final double minDropoffDistance;
+		// Spawning / construction magic numbers, tuned per map size and player count
+		final Params params = Params.load(game.gameMap.width, game.players.size(), paramsDir);
+		for (final String override : paramOverrides) {
+			params.set(override);
+		}
+		Log.log("Parameters: %s", params);
+		// IGNORE_PERCENT is the percentage of a cell's maximum halite that will be left
+		// on the ground.
+		final double IGNORE_PERCENT = params.get(Param.IGNORE_PERCENT);
+		final int minDropoffTurn = params.getInt(Param.MIN_DROPOFF_TURN);
+		final double minDropoffDistance = params.get(Param.MIN_DROPOFF_DISTANCE);
 		// When the percentage of remaining halite on the map is lower than this number,
 		// ships will stop spawning
-		double remainingHaliteToSpawnUntil;
-		final int dropoffTravelDist;
-		if (!is2p) {
-			remainingHaliteToSpawnUntil = 0.51;
-			switch (game.gameMap.width) {
-			case 40:
-				dropoffTravelDist = 5;
-				remainingHaliteToSpawnUntil = 0.35;
-				minDropoffTurn = 135;
-				minDropoffDistance = (game.gameMap.width / 4) * 1.25;
-				break;
-			case 48:
-				dropoffTravelDist = 6;
-				remainingHaliteToSpawnUntil = 0.4;
-				minDropoffTurn = 120;
-				minDropoffDistance = (game.gameMap.width / 4) * 1.25;
-				break;
-			case 56:
-				dropoffTravelDist = 6;
-				remainingHaliteToSpawnUntil = 0.4;
-				minDropoffTurn = 120;
-				minDropoffDistance = 14;
-				break;
-			case 64:
-				dropoffTravelDist = 6;
-				remainingHaliteToSpawnUntil = 0.40;
-				minDropoffTurn = 150;
-				minDropoffDistance = 14;
-				break;
-			case 32:
-			default:
-				dropoffTravelDist = 4;
-				remainingHaliteToSpawnUntil = 0.40;
-				minDropoffTurn = 120;
-				minDropoffDistance = 10;
-				break;
-			}
-		} else {
-			remainingHaliteToSpawnUntil = 0.41;
-			switch (game.gameMap.width) {
-			case 40:
-				minDropoffTurn = 135;
-				minDropoffDistance = 15;
-				dropoffTravelDist = 6;
-				break;
-			case 48:
-				minDropoffTurn = 120;
-				minDropoffDistance = 14;
-				remainingHaliteToSpawnUntil = 0.5;
-				dropoffTravelDist = 8;
-				break;
-			case 56:
-				minDropoffTurn = 120;
-				minDropoffDistance = 15;
-				remainingHaliteToSpawnUntil = 0.55;
-				dropoffTravelDist = 10;
-				break;
-			case 64:
-				minDropoffTurn = 120;
-				minDropoffDistance = 15;
-				remainingHaliteToSpawnUntil = 0.5;
-				dropoffTravelDist = 12;
-				break;
-			case 32:
-			default:
-				dropoffTravelDist = 4;
-				minDropoffTurn = 150;
-				minDropoffDistance = 16;
-				break;
-			}
-		}
-
-		Double avgTime = 0.0;
+		final double remainingHaliteToSpawnUntil = params.get(Param.SPAWN_REMAINING_HALITE);
+		final double remainingHaliteToPlanDropoffsUntil = params.get(Param.DROPOFF_REMAINING_HALITE);
+		final int dropoffTravelDist = params.getInt(Param.DROPOFF_TRAVEL_DISTANCE);
+		final int dropoffSurroundingHalite = params.getInt(Param.DROPOFF_SURROUNDING_HALITE);
+		final double returnFullness = params.get(Param.RETURN_FULLNESS);
+		final double combatAllyRatio = params.get(Param.COMBAT_ALLY_RATIO);
+		final double finalRushMargin = params.get(Param.FINAL_RUSH_MARGIN);
+		final double spawnTurnFraction = params.get(Param.SPAWN_TURN_FRACTION);
+		game.gameMap.rammingRatio = params.get(Param.RAMMING_RATIO);
+
+		double avgTime = 0.0;
 		int turnsSpentWaiting = 0;
-		final Map<EntityId, String> shipStatus = new HashMap<>();
-		final Map<EntityId, MapCell> shipsDroppingOff = new HashMap<>();
-		final List<Entity> allStructures = new ArrayList<>();
+		final ShipStates shipStates = new ShipStates(debug);
+		// The site each ship is building a dropoff at, indexed by the ship's slot.
+		MapCell[] shipsDroppingOff = new MapCell[16];
+		int numShipsDroppingOff = 0;
 		final int CIRCLE_RAD = Constants.INSPIRATION_RADIUS;
+		final int NEARBY_RAD = is2p ? 6 : 4;
+		final TargetAssignment targetAssignment = new TargetAssignment(game.gameMap.size());
+		// The cells claimed by the ships that have decided to move this turn.
+		final boolean[] claimed = new boolean[game.gameMap.size()];
+		// Scratch space for the directions towards a target.
+		final Direction[] moves = new Direction[2];
+		game.gameMap.trackOccupancy(CIRCLE_RAD);
+		game.gameMap.trackOccupancy(NEARBY_RAD);
 
 		final String BOT_NAME = "MyBot_40-1";
 		game.ready(BOT_NAME);
 		Log.log("Successfully created bot %s! My Player ID is %d.", BOT_NAME, game.myId.id);
 		F_Log.log("[");
 
-		Comparator<MapCell> comp = comparing(
-				c -> c.halite + (c.getSurroundingHalite() - c.halite) / (2 * CIRCLE_RAD * (CIRCLE_RAD + 1)));
-
-		for (;;) {
-			game.updateFrame();
-			final long startTime = System.nanoTime();
-			final Player me = game.me;
-			final GameMap gameMap = game.gameMap;
-			final ArrayList<Command> commandQueue = new ArrayList<>();
-			final List<MapCell> unrolledMap = gameMap.cellsList;
-			final Map<Ship, Direction> shipPaths = new HashMap<>();
-			final List<MapCell> targetCells = new ArrayList<>();
-			final int remainingTurns = maxTurns - game.turnNumber;
-			int haliteRequiredToConstruct = 4_000;
-
-			// Remove ships that no longer exist.
-			shipStatus.entrySet().removeIf(e -> !me.ships.containsKey(e.getKey()));
-			shipsDroppingOff.entrySet().removeIf(e -> !me.ships.containsKey(e.getKey()));
-
-			// Construct a list of all structures.
-			for (final Player player : game.players) {
-				allStructures.add(player.shipyard);
-				allStructures.addAll(player.dropoffs.values());
-			}
-
-			// Calculate inspiration and halite density
-			final Set<Position> futureDropoffs = new HashSet<>();
-			final Set<MapCell> dropoffTargets = new HashSet<>();
-			for (final MapCell cell : unrolledMap) {
-				List<MapCell> circle = gameMap.getCircle(cell.position, CIRCLE_RAD);
-				int totalHalite = 0;
-				int numNearbyEnemies = 0;
-				for (final MapCell c : circle) {
-					totalHalite += c.halite;
-					if (!c.isOccupied()) {
-						continue;
-					} else if (!c.ship.belongsTo(me)) {
-						numNearbyEnemies++;
+		Comparator<MapCell> comp = comparingDouble(c -> c.getHalite()
+				+ (c.getSurroundingHalite() - c.getHalite()) / (2 * CIRCLE_RAD * (CIRCLE_RAD + 1)));
+		final Comparator<MapCell> richestFirst = comp.reversed();
+		final StableSort<MapCell> dropoffSort = new StableSort<>();
+		// Measures how much each turn allocates, once the game has warmed up.
+		final AllocationMeter allocationMeter = new AllocationMeter();
+		final int ALLOCATION_WARMUP_TURNS = 20;
+
+		// The scorer's threads (with --threads) are stopped however the game ends.
+		try (ShipScorer shipScorer = new ShipScorer(threads)) {
+			while (input.hasNext()) {
+				// The whole turn is metered, from reading the frame to sending the commands.
+				allocationMeter.start();
+				game.updateFrame();
+				final long startTime = System.nanoTime();
+				budget.startTurn(startTime);
+				final Player me = game.me;
+				final GameMap gameMap = game.gameMap;
+				// Every per-turn collection comes from the turn's arena.
+				final TurnArena arena = game.arena;
+				final List<Command> commandQueue = arena.commands;
+				final int mapSize = gameMap.size();
+				final int[] halite = gameMap.halite;
+				final Map<Ship, Direction> shipPaths = arena.shipPaths;
+				final List<Ship> shipsToScore = arena.ships;
+				targetAssignment.reset();
+				final int remainingTurns = maxTurns - game.turnNumber;
+				int haliteRequiredToConstruct = 4_000;
+
+				// Forget the ships that no longer exist, and make room for new ones.
+				for (final Ship ship : me.destroyed) {
+					shipStates.remove(ship);
+					if (shipsDroppingOff[ship.slot] != null) {
+						shipsDroppingOff[ship.slot] = null;
+						numShipsDroppingOff--;
 					}
 				}
-				cell.setSurroundingHalite(totalHalite);
-				cell.setSurroundingHaliteDensity(totalHalite / circle.size());
-				cell.setMineableHaliteThisTurn(
-						((cell.halite + 3) / 4) * (numNearbyEnemies >= Constants.INSPIRATION_SHIP_COUNT ? 3 : 1));
-				// Only consider inspiration once midgame starts?
-				if (!is2p || game.turnNumber >= minDropoffTurn) {
-					cell.setInspirationEnabled(numNearbyEnemies >= Constants.INSPIRATION_SHIP_COUNT);
+				if (me.slotCount() > shipsDroppingOff.length) {
+					shipsDroppingOff = Arrays.copyOf(shipsDroppingOff, 2 * me.slotCount());
 				}
-				// Iterate through a larger circle to count nearby allies/enemies
-				numNearbyEnemies = 0;
-				int numNearbyAllies = 0;
-				circle = gameMap.getCircle(cell.position, is2p ? 6 : 4);
-				for (final MapCell c : circle) {
-					if (!c.isOccupied()) {
-						continue;
-					} else if (c.ship.belongsTo(me)) {
-						numNearbyAllies++;
-					} else {
-						numNearbyEnemies++;
-					}
-				}
-				cell.setNumNearbyAllies(numNearbyAllies);
-				cell.setNumNearbyEnemies(numNearbyEnemies);
-
-				// Calculate the nearest friendly structure to the cell
-				final int shipyardDist = gameMap.calculateDistance(cell.position, me.shipyard.position);
-				final Position nearestDropoff = me.dropoffs.values().stream()
-						.filter(d -> gameMap.calculateDistance(cell.position, d.position) < shipyardDist)
-						.min(comparing(d -> gameMap.calculateDistance(cell.position, d.position))).map(d -> d.position)
-						.orElse(me.shipyard.position);
-				cell.setNearestDropoff(nearestDropoff);
-
-				// Dropoff target logic
-				if ((gameMap.currentFreeHalite / gameMap.initialHalite) > remainingHaliteToSpawnUntil
-						* (is2p || gameMap.width == 40 || gameMap.width == 48 ? 1 : 1.25) && cell.halite > 100
-						&& (cell.getSurroundingHalite()) >= 8_500) {
-					dropoffTargets.add(cell);
+
+				// Calculate inspiration and halite density
+				if (debug && game.turnNumber % 25 == 1) {
+					verifyCircleCounts(gameMap, me, CIRCLE_RAD);
+					verifyCircleCounts(gameMap, me, NEARBY_RAD);
 				}
-			}
 
-			dropoffTargets.stream().sorted(comp.reversed()).forEachOrdered(target -> {
-				boolean nearDropoff = false;
-				for (final Entity structure : allStructures) {
-					if (gameMap.calculateDistance(target.position, structure.position) <= minDropoffDistance) {
-						nearDropoff = true;
+				// Future dropoffs are planned, claimed and blended richest first.
+				final List<Position> futureDropoffs = arena.positions;
+				final List<MapCell> dropoffTargets = arena.cells;
+				budget.startPhase(Phase.DENSITY);
+				for (int i = 0; i < mapSize; i++) {
+					// Out of time: the remaining cells keep last turn's values.
+					if ((i & 255) == 0 && budget.phaseExpired()) {
+						Log.log(Level.WARN, Category.TIMING,
+								"*** WARNING: Out of time computing density at cell %d/%d! ***", i, mapSize);
 						break;
 					}
+					final MapCell cell = gameMap.cellAt[i];
+					final int numInspiringEnemies = gameMap.enemiesWithin(i, CIRCLE_RAD);
+					gameMap.mineableHaliteThisTurn[i] = ((halite[i] + 3) / 4)
+							* (numInspiringEnemies >= Constants.INSPIRATION_SHIP_COUNT ? 3 : 1);
+					// Only consider inspiration once midgame starts?
+					if (!is2p || game.turnNumber >= minDropoffTurn) {
+						gameMap.inspirationEnabled[i] = numInspiringEnemies >= Constants.INSPIRATION_SHIP_COUNT;
+					}
+					// Use a larger circle to count nearby allies/enemies
+					gameMap.numNearbyAllies[i] = (short) gameMap.alliesWithin(i, NEARBY_RAD);
+					gameMap.numNearbyEnemies[i] = (short) gameMap.enemiesWithin(i, NEARBY_RAD);
+
+					// Dropoff target logic
+					if ((gameMap.currentFreeHalite / gameMap.initialHalite) > remainingHaliteToPlanDropoffsUntil
+							&& halite[i] > 100 && gameMap.surroundingHalite[i] >= dropoffSurroundingHalite) {
+						dropoffTargets.add(cell);
+					}
 				}
-				if (gameMap.calculateDistance(target.position,
-						target.getNearestDropoff()) <= (minDropoffDistance * 0.75)) {
-					nearDropoff = true;
-				}
-				for (final Position futureDropoff : futureDropoffs) {
-					if (nearDropoff
-							|| gameMap.calculateDistance(target.position, futureDropoff) <= minDropoffDistance) {
-						nearDropoff = true;
+
+				logPhase(budget);
+				budget.startPhase(Phase.DROPOFFS);
+				dropoffSort.sort(dropoffTargets, richestFirst);
+				for (final MapCell target : dropoffTargets) {
+					if (budget.phaseExpired()) {
 						break;
 					}
+					boolean nearDropoff = gameMap.isStructureWithin(target.index, minDropoffDistance);
+					if (gameMap.distToNearestDropoff[target.index] <= (minDropoffDistance * 0.75)) {
+						nearDropoff = true;
+					}
+					for (int f = 0; f < futureDropoffs.size(); f++) {
+						if (nearDropoff || gameMap.calculateDistance(target.position,
+								futureDropoffs.get(f)) <= minDropoffDistance) {
+							nearDropoff = true;
+							break;
+						}
+					}
+					if (!nearDropoff) {
+						futureDropoffs.add(target.position);
+					}
 				}
-				if (!nearDropoff) {
-					futureDropoffs.add(target.position);
-				}
-			});
-
-			// F-Log future dropoffs
-			for (final Position futureDropoff : futureDropoffs) {
-				F_Log.log(futureDropoff, "teal", "Future Dropoff Location");
-				F_Log.log(futureDropoff, "", "\\nSurrounding Halite: %f",
-						gameMap.at(futureDropoff).getSurroundingHalite());
-			}
 
-			futureDropoffs.forEach(dropoffTarget -> {
-				if (!shipsDroppingOff.isEmpty() || me.ships.size() <= (me.dropoffs.size() + 1) * 7) {
-					return;
+				// F-Log future dropoffs
+				for (int f = 0; f < futureDropoffs.size(); f++) {
+					final Position futureDropoff = futureDropoffs.get(f);
+					F_Log.log(Category.DROPOFF, futureDropoff, "teal", "Future Dropoff Location");
+					F_Log.log(Category.DROPOFF, futureDropoff, "", "\\nSurrounding Halite: %f",
+							gameMap.at(futureDropoff).getSurroundingHalite());
 				}
-				me.ships.values().stream().min(comparing(s -> gameMap.calculateDistance(dropoffTarget, s.position)))
-						.ifPresent(ship -> {
-							if (gameMap.calculateDistance(dropoffTarget, ship.position) <= dropoffTravelDist) {
-								shipsDroppingOff.put(ship.id, gameMap.at(dropoffTarget));
-								shipStatus.put(ship.id, "makeDropoff");
-							}
-						});
-			});
 
-			for (final Ship ship : me.ships.values()) {
-				if (!shipStatus.containsKey(ship.id)) {
-					shipStatus.put(ship.id, "exploring");
+				for (int f = 0; f < futureDropoffs.size(); f++) {
+					final Position dropoffTarget = futureDropoffs.get(f);
+					if (numShipsDroppingOff > 0 || me.ships.size() <= (me.dropoffs.size() + 1) * 7) {
+						continue;
+					}
+					// The nearest ship (the first one listed, on ties).
+					final int dropoffIndex = gameMap.index(dropoffTarget);
+					Ship ship = null;
+					int shipDistance = Integer.MAX_VALUE;
+					for (final Ship s : me.ships.values()) {
+						final int d = gameMap.distance(dropoffIndex, gameMap.index(s.position));
+						if (d < shipDistance) {
+							ship = s;
+							shipDistance = d;
+						}
+					}
+					if (ship != null && shipDistance <= dropoffTravelDist) {
+						shipsDroppingOff[ship.slot] = gameMap.at(dropoffTarget);
+						numShipsDroppingOff++;
+						shipStates.set(ship, MAKE_DROPOFF);
+					}
 				}
 
-				final MapCell shipCell = gameMap.at(ship);
-				final boolean shipIsOnStructure = shipCell.hasStructure() && shipCell.structure.belongsTo(me);
-
-				// Determine whether the ship should rush back to the base for end-game
-				if (remainingTurns <= 1.5 * gameMap.calculateDistance(ship.position, shipCell.getNearestDropoff())) {
-					shipStatus.put(ship.id, "finalRush");
-				}
+				// Distance from each cell to base, counting the future dropoffs
+				final int[] distToBase = gameMap.blendFutureDropoffs(futureDropoffs);
+				logPhase(budget);
 
-				if (shipStatus.get(ship.id).equals("finalRush")) {
-					F_Log.log(ship.position, "brown", "Rushing Home");
-					if (shipIsOnStructure) {
-						shipCell.markSafe();
-						shipPaths.put(ship, STILL);
-					} else {
-						final boolean allowCombat = gameMap.calculateDistance(ship.position,
-								shipCell.getNearestDropoff()) <= 4;
-						final Direction path = gameMap.getDirection(ship.position, shipCell.getNearestDropoff(),
-								"finalRush", allowCombat);
-						shipPaths.put(ship, path);
+				for (final Ship ship : me.ships.values()) {
+					if (shipStates.get(ship) == null) {
+						shipStates.set(ship, EXPLORING);
 					}
-					continue;
-				}
-				if (shipStatus.get(ship.id).equals("returning")) {
-					if (shipIsOnStructure) {
-						shipStatus.put(ship.id, "exploring");
-					} else {
-						F_Log.log(ship.position, "chocolate", "Returning Home");
-						final boolean allowCombat = gameMap.calculateDistance(ship.position,
-								shipCell.getNearestDropoff()) <= 4;
-						final Direction path = gameMap.getDirection(ship.position, shipCell.getNearestDropoff(),
-								"returning", allowCombat);
-						shipPaths.put(ship, path);
-						continue;
+
+					final MapCell shipCell = gameMap.at(ship);
+					final boolean shipIsOnStructure = shipCell.hasStructure() && shipCell.structure.belongsTo(me);
+
+					// Determine whether the ship should rush back to the base for end-game
+					final int distToNearestDropoff = gameMap.distToNearestDropoff[shipCell.index];
+					if (remainingTurns <= finalRushMargin * distToNearestDropoff) {
+						shipStates.set(ship, FINAL_RUSH);
 					}
-				}
 
-				// Calculate the highest-valued cells.
-				final List<MapCell> topCells = new ArrayList<>();
-				for (final MapCell cell : unrolledMap) {
-					if (cell.hasStructure()) {
+					if (shipStates.is(ship, FINAL_RUSH)) {
+						F_Log.log(Category.SHIP, ship.position, "brown", "Rushing Home");
+						if (shipIsOnStructure) {
+							shipCell.markSafe();
+							shipPaths.put(ship, STILL);
+						} else {
+							final boolean allowCombat = distToNearestDropoff <= 4;
+							final Direction path = gameMap.getDirection(shipCell.index,
+									gameMap.nearestDropoff[shipCell.index], FINAL_RUSH, allowCombat);
+							shipPaths.put(ship, path);
+						}
 						continue;
 					}
-					final double dist = gameMap.calculateDistance(ship.position, cell.position);
-					int distToBase = gameMap.calculateDistance(cell.position, cell.getNearestDropoff());
-					for (final Position futureDropoff : futureDropoffs) {
-						final int distance = gameMap.calculateDistance(cell.position, futureDropoff);
-						if (distance < distToBase) {
-							distToBase = (distToBase + distance) / 2;
+					if (shipStates.is(ship, RETURNING)) {
+						if (shipIsOnStructure) {
+							shipStates.set(ship, EXPLORING);
+						} else {
+							F_Log.log(Category.SHIP, ship.position, "chocolate", "Returning Home");
+							final boolean allowCombat = distToNearestDropoff <= 4;
+							final Direction path = gameMap.getDirection(shipCell.index,
+									gameMap.nearestDropoff[shipCell.index], RETURNING, allowCombat);
+							shipPaths.put(ship, path);
+							continue;
 						}
 					}
-					double baseValue = cell.halite
-							+ (cell.getSurroundingHalite() - cell.halite) / (2 * CIRCLE_RAD * (CIRCLE_RAD + 1));
-					if (is2p && cell.isOccupied() && !cell.ship.belongsTo(me)
-							&& cell.getNumNearbyAllies() > cell.getNumNearbyEnemies()) {
-						baseValue += cell.ship.halite;
-					}
-					final double value = cell.isInspirationEnabled()
-							? (baseValue + (cell.halite * Constants.INSPIRED_BONUS_MULTIPLIER))
-							: baseValue;
-					cell.setValue(value / (dist + distToBase));
-					topCells.add(cell);
-				}
-				topCells.sort(comparing(MapCell::getValue).reversed());
-
-				// If the ship is on its way to make a dropoff.
-				if (shipStatus.get(ship.id).equals("makeDropoff")) {
-					final Position dropoffTarget = shipsDroppingOff.get(ship.id).position;
-					haliteRequiredToConstruct -= gameMap.at(dropoffTarget).halite + me.halite;
-					if (ship.position.equals(dropoffTarget)) {
-						shipStatus.put(ship.id, "waitingToConstruct");
-						// Reset haliteRequiredToConstruct
-						haliteRequiredToConstruct = 4_000;
-					} else {
-						boolean nearDropoff = allStructures.stream().anyMatch(
-								s -> gameMap.calculateDistance(dropoffTarget, s.position) <= minDropoffDistance);
-						if (nearDropoff) {
-							shipsDroppingOff.remove(ship.id);
-							shipStatus.put(ship.id, "exploring");
+
+					// If the ship is on its way to make a dropoff.
+					if (shipStates.is(ship, MAKE_DROPOFF)) {
+						final MapCell dropoffCell = shipsDroppingOff[ship.slot];
+						final Position dropoffTarget = dropoffCell.position;
+						haliteRequiredToConstruct -= dropoffCell.getHalite() + me.halite;
+						if (shipCell == dropoffCell) {
+							shipStates.set(ship, WAITING_TO_CONSTRUCT);
+							// Reset haliteRequiredToConstruct
+							haliteRequiredToConstruct = 4_000;
 						} else {
-							boolean shipShouldMove = false;
-							haliteRequiredToConstruct = Math.min(MAX_HALITE, haliteRequiredToConstruct);
-							if (shipCell.halite <= 10 || ship.halite >= haliteRequiredToConstruct) {
-								shipShouldMove = true;
+							boolean nearDropoff = gameMap.isStructureWithin(dropoffCell.index, minDropoffDistance);
+							if (nearDropoff) {
+								shipsDroppingOff[ship.slot] = null;
+								numShipsDroppingOff--;
+								shipStates.set(ship, EXPLORING);
 							} else {
-								final List<MapCell> potentialTargets = new ArrayList<>();
-								final List<Direction> dirs = gameMap.getUnsafeMoves(ship.position, dropoffTarget);
-								for (final Direction dir : dirs) {
-									potentialTargets.add(gameMap.at(shipCell.position.directionalOffset(dir)));
-								}
-								for (final MapCell n : potentialTargets) {
-									// If moving to the neighbour would give at least 50% more halite
-									shipShouldMove = ((n.getMineableHaliteThisTurn()
-											- (int) Math.floor(shipCell.halite * 0.1)
-											- shipCell.getMineableHaliteThisTurn())
-											- shipCell.getMineableHaliteThisTurn())
-											/ (float) shipCell.getMineableHaliteThisTurn() > 0.5;
-									if (shipShouldMove) {
-										break;
+								boolean shipShouldMove = false;
+								haliteRequiredToConstruct = Math.min(MAX_HALITE, haliteRequiredToConstruct);
+								if (shipCell.getHalite() <= 10 || ship.halite >= haliteRequiredToConstruct) {
+									shipShouldMove = true;
+								} else {
+									final int numMoves = gameMap.getUnsafeMoves(shipCell.index, dropoffCell.index,
+											moves);
+									for (int m = 0; m < numMoves; m++) {
+										final MapCell n = gameMap.at(gameMap.neighbor(shipCell.index, moves[m]));
+										// If moving to the neighbour would give at least 50% more halite
+										shipShouldMove = ((n.getMineableHaliteThisTurn()
+												- (int) Math.floor(shipCell.getHalite() * 0.1)
+												- shipCell.getMineableHaliteThisTurn())
+												- shipCell.getMineableHaliteThisTurn())
+												/ (float) shipCell.getMineableHaliteThisTurn() > 0.5;
+										if (shipShouldMove) {
+											break;
+										}
 									}
 								}
+								F_Log.log(Category.DROPOFF, dropoffTarget, "yellow");
+								if (shipShouldMove) {
+									final boolean allowCombat = gameMap.distance(shipCell.index,
+											dropoffCell.index) <= 2;
+									final Direction path = gameMap.getDirection(shipCell.index, dropoffCell.index,
+											allowCombat);
+									shipPaths.put(ship, path);
+									F_Log.log(Category.DROPOFF, ship.position, "yellow",
+											"Navigating to Dropoff Target: %s", dropoffTarget);
+								} else {
+									F_Log.log(Category.DROPOFF, ship.position, "yellow",
+											"Mining to form Dropoff. Need %d to construct.", haliteRequiredToConstruct);
+									shipPaths.put(ship, STILL);
+								}
+								continue;
 							}
-							F_Log.log(dropoffTarget, "yellow");
-							if (shipShouldMove) {
-								final boolean allowCombat = gameMap.calculateDistance(ship.position,
-										dropoffTarget) <= 2;
-								final Direction path = gameMap.getDirection(ship.position, dropoffTarget, allowCombat);
-								shipPaths.put(ship, path);
-								F_Log.log(ship.position, "yellow", "Navigating to Dropoff Target: %s", dropoffTarget);
-							} else {
-								F_Log.log(ship.position, "yellow", "Mining to form Dropoff. Need %d to construct.",
-										haliteRequiredToConstruct);
-								shipPaths.put(ship, STILL);
+						}
+					}
+					// If the ship is already at the dropoff destination, but is waiting to be able
+					// to construct
+					if (shipStates.is(ship, WAITING_TO_CONSTRUCT)) {
+						haliteRequiredToConstruct -= ship.halite + shipCell.getHalite() + me.halite;
+						// Don't attempt to construct on top of a structure.
+						if (shipCell.hasStructure() || turnsSpentWaiting >= 50) {
+							shipsDroppingOff[ship.slot] = null;
+							numShipsDroppingOff--;
+							shipStates.set(ship, EXPLORING);
+							turnsSpentWaiting = 0;
+						} else if ((me.halite + ship.halite + shipCell.getHalite()) >= 4_000) {
+							F_Log.log(Category.DROPOFF, ship.position, "yellow", "Waiting to Construct Dropoff");
+							me.halite = me.halite - (4_000 - ship.halite + shipCell.getHalite());
+							commandQueue.add(ship.makeDropoff());
+							turnsSpentWaiting = 0;
+						} else if (turnsSpentWaiting > 0 && turnsSpentWaiting % 10 == 0) {
+							// Move to the richest neighbor
+							MapCell neighbor = shipCell;
+							for (final Direction d : Direction.ALL_CARDINALS) {
+								final MapCell cell = gameMap.at(gameMap.neighbor(shipCell.index, d));
+								if (cell.getHalite() > neighbor.getHalite()) {
+									neighbor = cell;
+								}
 							}
-							continue;
+							shipPaths.put(ship, gameMap.getDirectionToNeighbor(shipCell, neighbor));
+							turnsSpentWaiting++;
+						} else {
+							F_Log.log(Category.DROPOFF, ship.position, "yellow", "Waiting to Construct Dropoff");
+							shipPaths.put(ship, STILL);
+							turnsSpentWaiting++;
 						}
+						continue;
+					}
+					// If the ship is __% full, begin returning home
+					if (ship.halite >= MAX_HALITE * returnFullness) {
+						F_Log.log(Category.SHIP, ship.position, "chocolate", "Returning Home");
+						shipStates.set(ship, RETURNING);
+						final Direction path = gameMap.getDirection(shipCell.index,
+								gameMap.nearestDropoff[shipCell.index], RETURNING, false);
+						shipPaths.put(ship, path);
+						continue;
 					}
+
+					// Score the map for this ship once every ship has been looked at.
+					shipsToScore.add(ship);
 				}
-				// If the ship is already at the dropoff destination, but is waiting to be able
-				// to construct
-				if (shipStatus.get(ship.id).equals("waitingToConstruct")) {
-					haliteRequiredToConstruct -= ship.halite + shipCell.halite + me.halite;
-					// Don't attempt to construct on top of a structure.
-					if (shipCell.hasStructure() || turnsSpentWaiting >= 50) {
-						shipsDroppingOff.remove(ship.id);
-						shipStatus.put(ship.id, "exploring");
-						turnsSpentWaiting = 0;
-					} else if ((me.halite + ship.halite + shipCell.halite) >= 4_000) {
-						F_Log.log(ship.position, "yellow", "Waiting to Construct Dropoff");
-						me.halite = me.halite - (4_000 - ship.halite + shipCell.halite);
-						commandQueue.add(ship.makeDropoff());
-						turnsSpentWaiting = 0;
-					} else if (turnsSpentWaiting > 0 && turnsSpentWaiting % 10 == 0) {
-						// Move to the richest neighbor
-						MapCell neighbor = gameMap.getNeighbors(shipCell).stream()
-								.filter(cell -> cell.halite > shipCell.halite).max(comparing(cell -> cell.halite))
-								.orElse(shipCell);
-						shipPaths.put(ship, gameMap.getDirectionToNeighbor(shipCell, neighbor));
-						turnsSpentWaiting++;
+
+				// Calculate the highest-valued cells for each remaining ship. Keeping
+				// (number of ships + 1) of them guarantees every ship can be given a
+				// distinct target. Ships that aren't scored in time have no candidates and
+				// stay still.
+				budget.startPhase(Phase.SCORING);
+				shipScorer.score(gameMap, me, is2p, CIRCLE_RAD, distToBase, shipsToScore, me.ships.size() + 1,
+						budget.phaseDeadline());
+				Arrays.fill(claimed, false);
+				for (int s = 0; s < shipsToScore.size(); s++) {
+					final Ship ship = shipsToScore.get(s);
+					final MapCell shipCell = gameMap.at(ship);
+					final TopK topK = shipScorer.result(s);
+
+					// The best target no earlier ship has claimed, if any.
+					int target = -1;
+					for (int k = 0; k < topK.size(); k++) {
+						if (!claimed[topK.cell(k)]) {
+							target = topK.cell(k);
+							break;
+						}
+					}
+
+					// If you could move to the target and mine more halite, do so?
+					boolean shipShouldMove = false;
+					if (topK.size() > 0) {
+						if (shipCell.getHalite() < MAX_HALITE * IGNORE_PERCENT) {
+							shipShouldMove = true;
+						} else if (target >= 0) {
+							final int numMoves = gameMap.getUnsafeMoves(shipCell.index, target, moves);
+							for (int m = 0; m < numMoves; m++) {
+								final MapCell n = gameMap.at(gameMap.neighbor(shipCell.index, moves[m]));
+								// If moving to the neighbour would give at least 5% more halite
+								shipShouldMove = ((n.getMineableHaliteThisTurn()
+										- (int) Math.floor(shipCell.getHalite() * 0.1)
+										- shipCell.getMineableHaliteThisTurn()) - shipCell.getMineableHaliteThisTurn())
+										/ (float) shipCell.getMineableHaliteThisTurn() > 0.05;
+								if (shipShouldMove) {
+									break;
+								}
+							}
+						}
+					}
+					if (shipShouldMove) {
+						// Claim the target (or the ship's own cell, if every candidate is taken);
+						// the ship's candidates are handed to the assignment below.
+						claimed[target >= 0 ? target : shipCell.index] = true;
+						targetAssignment.add(ship, topK);
+						shipStates.set(ship, EXPLORING);
 					} else {
-						F_Log.log(ship.position, "yellow", "Waiting to Construct Dropoff");
 						shipPaths.put(ship, STILL);
-						turnsSpentWaiting++;
+						shipStates.set(ship, MINING);
 					}
-					continue;
-				}
-				// If the ship is __% full, begin returning home
-				if (ship.halite >= MAX_HALITE * (is2p ? 0.9 : 0.85)) {
-					F_Log.log(ship.position, "chocolate", "Returning Home");
-					shipStatus.put(ship.id, "returning");
-					final Direction path = gameMap.getDirection(ship.position, shipCell.getNearestDropoff(),
-							"returning", false);
-					shipPaths.put(ship, path);
-					continue;
 				}
 
-				// If you could move to the target and mine more halite, do so?
-				boolean shipShouldMove = false;
-				for (final MapCell target : topCells) {
-					if (shipCell.halite < MAX_HALITE * IGNORE_PERCENT) {
-						shipShouldMove = true;
-						break;
-					}
-					if (targetCells.contains(target)) {
+				logPhase(budget);
+
+				// Match the exploring ships to targets, maximizing the total score.
+				budget.startPhase(Phase.ASSIGNMENT);
+				targetAssignment.solve(budget.phaseDeadline());
+				for (int i = 0; i < targetAssignment.size(); i++) {
+					final Ship ship = targetAssignment.ship(i);
+					if (targetAssignment.target(i) < 0) {
+						shipPaths.put(ship, STILL);
+						shipStates.set(ship, MINING);
 						continue;
 					}
-					final List<MapCell> potentialTargets = new ArrayList<>();
-					final List<Direction> dirs = gameMap.getUnsafeMoves(ship.position, target.position);
-					for (final Direction dir : dirs) {
-						potentialTargets.add(gameMap.at(shipCell.position.directionalOffset(dir)));
-					}
+					final MapCell target = gameMap.cellAt[targetAssignment.target(i)];
+					final MapCell shipCell = gameMap.at(ship);
+					final boolean allowCombat = shipCell.getNumNearbyAllies() > (shipCell.getNumNearbyEnemies()
+							* combatAllyRatio);
+					shipPaths.put(ship, gameMap.getDirection(shipCell.index, target.index, allowCombat));
+					shipStates.set(ship, MINING);
+					F_Log.log(Category.TARGET, ship.position, "", "Target Cell: %s", target);
+					F_Log.log(Category.TARGET, target.position, "#0000FF", "Targeted by Ship: %s", ship.id);
+				}
 
-					for (final MapCell n : potentialTargets) {
-						// If moving to the neighbour would give at least 5% more halite
-						shipShouldMove = ((n.getMineableHaliteThisTurn() - (int) Math.floor(shipCell.halite * 0.1)
-								- shipCell.getMineableHaliteThisTurn()) - shipCell.getMineableHaliteThisTurn())
-								/ (float) shipCell.getMineableHaliteThisTurn() > 0.05;
-						if (shipShouldMove) {
-							break;
-						}
+				logPhase(budget);
+
+				budget.startPhase(Phase.NAVIGATION);
+				gameMap.navigate(shipPaths, shipStates, budget, commandQueue);
+				logPhase(budget);
+
+				// Ship spawning conditional logic.
+				if ((me.ships.size() == 0 && remainingTurns >= 15 && me.halite > SHIP_COST)
+						|| game.turnNumber <= maxTurns * spawnTurnFraction
+								&& (gameMap.currentFreeHalite / gameMap.initialHalite) > remainingHaliteToSpawnUntil
+								&& !gameMap.at(me.shipyard).isOccupied()) {
+					final boolean constructing = shipStates.count(WAITING_TO_CONSTRUCT) > 0
+							|| shipStates.count(MAKE_DROPOFF) > 0;
+					if (constructing && haliteRequiredToConstruct + SHIP_COST <= 0 && me.halite >= SHIP_COST) {
+						commandQueue.add(me.shipyard.spawn());
+					} else if (!constructing && me.halite >= SHIP_COST) {
+						commandQueue.add(me.shipyard.spawn());
 					}
-
-					break;
-				}
-				if (shipShouldMove) {
-					topCells.removeAll(targetCells);
-					MapCell target = ofNullable(topCells.isEmpty() ? null : topCells.get(0)).orElse(shipCell);
-					targetCells.add(target);
-					shipStatus.put(ship.id, "exploring");
-				} else {
-					shipPaths.put(ship, STILL);
-					shipStatus.put(ship.id, "mining");
 				}
-			}
 
-			for (final MapCell target : targetCells) {
-				Optional<Ship> closestShip = me.ships.values().stream()
-						.filter(ship -> shipStatus.get(ship.id).equals("exploring"))
-						.min(comparing(ship -> gameMap.calculateDistance(target.position, ship.position)));
-				if (closestShip.isPresent()) {
-					final Ship ship = closestShip.get();
-					final MapCell shipCell = gameMap.at(ship);
-					final boolean allowCombat = shipCell.getNumNearbyAllies() > (shipCell.getNumNearbyEnemies() * 1.35);
-					shipPaths.put(ship, gameMap.getDirection(ship.position, target.position, allowCombat));
-					shipStatus.put(ship.id, "mining");
-					F_Log.log(ship.position, "", "Target Cell: %s", target);
-					F_Log.log(target.position, "#0000FF", "Targeted by Ship: %s", ship.id);
+				// Calculate and log how long the current turn took, as well as the current
+				// total execution time.
+				long endTime = System.nanoTime();
+				final double took = (endTime - startTime) / 1_000_000.0;
+				avgTime += took;
+				Log.log(Level.DEBUG, Category.TIMING, "Turn took: %f ms", took);
+				Log.log(Level.DEBUG, Category.TIMING, "Average turn time: %f ms", avgTime / game.turnNumber);
+				game.endTurn(commandQueue);
+
+				final long allocated = allocationMeter.stop();
+				Log.log(Level.DEBUG, Category.TIMING, "Turn allocated: %d bytes", allocated);
+				if (allocationBudget >= 0 && game.turnNumber > ALLOCATION_WARMUP_TURNS
+						&& allocated > allocationBudget) {
+					Log.log(Level.WARN, Category.TIMING,
+							"*** WARNING: Turn %d allocated %d bytes, over the budget of %d ***", game.turnNumber,
+							allocated, allocationBudget);
 				}
 			}
+		}
+	}
 
-			List<Command> moveCommands = gameMap.navigate(shipPaths, shipStatus, startTime);
-			commandQueue.addAll(moveCommands);
-
-			// Ship spawning conditional logic.
-			if ((me.ships.size() == 0 && remainingTurns >= 15 && me.halite > SHIP_COST)
-					|| game.turnNumber <= maxTurns * 0.8f
-							&& (gameMap.currentFreeHalite / gameMap.initialHalite) > remainingHaliteToSpawnUntil
-							&& !gameMap.at(me.shipyard).isOccupied()) {
-				if ((shipStatus.containsValue("waitingToConstruct") || shipStatus.containsValue("makeDropoff"))
-						&& haliteRequiredToConstruct + SHIP_COST <= 0 && me.halite >= SHIP_COST) {
-					commandQueue.add(me.shipyard.spawn());
-				} else if (!(shipStatus.containsValue("waitingToConstruct") || shipStatus.containsValue("makeDropoff"))
-						&& me.halite >= SHIP_COST) {
-					commandQueue.add(me.shipyard.spawn());
+	/**
+	 * Logs how far into the turn the current phase finished.
+	 *
+	 * @param budget
+	 */
+	private static void logPhase(final TurnBudget budget) {
+		if (Log.enabled(Level.DEBUG, Category.TIMING)) {
+			Log.log("%s finished at %f ms", budget.phase(), budget.elapsed());
+		}
+	}
+
+	/**
+	 * Checks the surrounding halite and ship occupancy counts maintained by the
+	 * {@link GameMap} against a brute-force {@link GameMap#getCircle} scan of every
+	 * cell. Only used in debug runs.
+	 * 
+	 * @param gameMap
+	 * @param me
+	 * @param radius  - A radius registered through
+	 *                {@link GameMap#trackOccupancy(int)}.
+	 */
+	private static void verifyCircleCounts(final GameMap gameMap, final Player me, final int radius) {
+		final long start = System.nanoTime();
+		for (int i = 0; i < gameMap.size(); i++) {
+			int totalHalite = 0;
+			int allies = 0;
+			int enemies = 0;
+			for (final MapCell c : gameMap.getCircle(gameMap.cellAt[i].position, radius)) {
+				totalHalite += c.getHalite();
+				if (!c.isOccupied()) {
+					continue;
+				} else if (c.ship.belongsTo(me)) {
+					allies++;
+				} else {
+					enemies++;
 				}
 			}
-
-			// Calculate and log how long the current turn took, as well as the current
-			// total execution time.
-			long endTime = System.nanoTime();
-			Double took = (endTime - startTime) / 1_000_000.0;
-			avgTime += took;
-			Log.log("Turn took: %f ms", took);
-			Log.log("Average turn time: %f ms", avgTime / game.turnNumber);
-			game.endTurn(commandQueue);
+			if ((radius == gameMap.surroundingRadius && totalHalite != gameMap.surroundingHalite[i])
+					|| allies != gameMap.alliesWithin(i, radius) || enemies != gameMap.enemiesWithin(i, radius)) {
+				throw new IllegalStateException(
+						String.format("Radius %d counts at %s don't match getCircle", radius, gameMap.cellAt[i]));
+			}
 		}
+		Log.log(Level.DEBUG, Category.GAME, "Radius %d counts match getCircle (scan took %f ms)", radius,
+				(System.nanoTime() - start) / 1_000_000.0);
 	}
 }
@@ -0,0 +1,52 @@
+package halite.bot;
+
+/**
+ * The tunable numbers of the bot's strategy. Each one has a type (integer or
+ * real) and the range the tuner may search; the values themselves live in
+ * {@link Params}.
+ */
+public enum Param {
+	/** The fraction of a cell's maximum halite that will be left on the ground. */
+	IGNORE_PERCENT(false, 0, 0.2),
+	/** The fraction of MAX_HALITE a ship carries before heading home. */
+	RETURN_FULLNESS(false, 0.5, 1),
+	/** The turn from which dropoffs are built (and, in 2p, inspiration is chased). */
+	MIN_DROPOFF_TURN(true, 0, 300),
+	/** How close a new dropoff may be to an existing or planned one. */
+	MIN_DROPOFF_DISTANCE(false, 4, 24),
+	/** How far a ship may travel to build a dropoff. */
+	DROPOFF_TRAVEL_DISTANCE(true, 1, 16),
+	/** The halite a dropoff site needs around it. */
+	DROPOFF_SURROUNDING_HALITE(true, 2_000, 20_000),
+	/** Dropoffs are only planned while this fraction of the initial halite is left. */
+	DROPOFF_REMAINING_HALITE(false, 0.1, 1),
+	/** Ships stop spawning once less than this fraction of the initial halite is left. */
+	SPAWN_REMAINING_HALITE(false, 0.1, 1),
+	/** Ships stop spawning after this fraction of the game. */
+	SPAWN_TURN_FRACTION(false, 0.3, 1),
+	/** How many times more allies than enemies must be nearby to allow combat. */
+	COMBAT_ALLY_RATIO(false, 0.5, 3),
+	/** How many times richer than the rammer an enemy must be to be rammed. */
+	RAMMING_RATIO(false, 1, 4),
+	/** Ships rush home once the remaining turns are this many times their distance. */
+	FINAL_RUSH_MARGIN(false, 1, 3);
+
+	public final boolean integer;
+	public final double min;
+	public final double max;
+
+	Param(final boolean integer, final double min, final double max) {
+		this.integer = integer;
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * @param value
+	 * @return - The value, clamped to the range and rounded if integer.
+	 */
+	public double fit(final double value) {
+		final double clamped = Math.max(min, Math.min(max, value));
+		return integer ? Math.round(clamped) : clamped;
+	}
+}
@@ -0,0 +1,258 @@
+package halite.bot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * The values of every {@link Param} for one map size and player count.
+ *
+ * The defaults are the hand-tuned values. A properties file of "NAME=value"
+ * lines, named by {@link #fileName(int, int)}, overrides some or all of them:
+ * it is looked up in the --params directory if one is given, and otherwise
+ * under /params on the classpath, so tuned files dropped into
+ * src/main/resources/params ship inside the bot's jar.
+ */
+public final class Params {
+	private static final String RESOURCE_DIR = "/params/";
+
+	private final int width;
+	private final int players;
+	private final double[] values = new double[Param.values().length];
+
+	private Params(final int width, final int players) {
+		this.width = width;
+		this.players = players;
+	}
+
+	/**
+	 * @param width   - The width of the map.
+	 * @param players - The number of players.
+	 * @return - The hand-tuned values for the format.
+	 */
+	public static Params defaults(final int width, final int players) {
+		final Params p = new Params(width, players);
+		p.set(Param.IGNORE_PERCENT, 0.055);
+		p.set(Param.DROPOFF_SURROUNDING_HALITE, 8_500);
+		p.set(Param.SPAWN_TURN_FRACTION, 0.8);
+		p.set(Param.COMBAT_ALLY_RATIO, 1.35);
+		p.set(Param.RAMMING_RATIO, 1.75);
+		p.set(Param.FINAL_RUSH_MARGIN, 1.5);
+		if (players != 2) {
+			p.set(Param.RETURN_FULLNESS, 0.85);
+			switch (width) {
+			case 40:
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 5);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.35);
+				p.set(Param.MIN_DROPOFF_TURN, 135);
+				p.set(Param.MIN_DROPOFF_DISTANCE, (width / 4) * 1.25);
+				break;
+			case 48:
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 6);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.4);
+				p.set(Param.MIN_DROPOFF_TURN, 120);
+				p.set(Param.MIN_DROPOFF_DISTANCE, (width / 4) * 1.25);
+				break;
+			case 56:
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 6);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.4);
+				p.set(Param.MIN_DROPOFF_TURN, 120);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 14);
+				break;
+			case 64:
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 6);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.40);
+				p.set(Param.MIN_DROPOFF_TURN, 150);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 14);
+				break;
+			case 32:
+			default:
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 4);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.40);
+				p.set(Param.MIN_DROPOFF_TURN, 120);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 10);
+				break;
+			}
+			// Dropoffs on the bigger maps are planned a while before spawning stops.
+			final double dropoffFactor = width == 40 || width == 48 ? 1 : 1.25;
+			p.set(Param.DROPOFF_REMAINING_HALITE, p.get(Param.SPAWN_REMAINING_HALITE) * dropoffFactor);
+		} else {
+			p.set(Param.RETURN_FULLNESS, 0.9);
+			p.set(Param.SPAWN_REMAINING_HALITE, 0.41);
+			switch (width) {
+			case 40:
+				p.set(Param.MIN_DROPOFF_TURN, 135);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 15);
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 6);
+				break;
+			case 48:
+				p.set(Param.MIN_DROPOFF_TURN, 120);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 14);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.5);
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 8);
+				break;
+			case 56:
+				p.set(Param.MIN_DROPOFF_TURN, 120);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 15);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.55);
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 10);
+				break;
+			case 64:
+				p.set(Param.MIN_DROPOFF_TURN, 120);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 15);
+				p.set(Param.SPAWN_REMAINING_HALITE, 0.5);
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 12);
+				break;
+			case 32:
+			default:
+				p.set(Param.DROPOFF_TRAVEL_DISTANCE, 4);
+				p.set(Param.MIN_DROPOFF_TURN, 150);
+				p.set(Param.MIN_DROPOFF_DISTANCE, 16);
+				break;
+			}
+			p.set(Param.DROPOFF_REMAINING_HALITE, p.get(Param.SPAWN_REMAINING_HALITE));
+		}
+		return p;
+	}
+
+	/**
+	 * @param width   - The width of the map.
+	 * @param players - The number of players.
+	 * @param dir     - The directory to look for the format's file in, or null to
+	 *                look on the classpath.
+	 * @return - The defaults, overridden by the format's file if there is one.
+	 */
+	public static Params load(final int width, final int players, final String dir) {
+		final Params p = defaults(width, players);
+		final String name = fileName(width, players);
+		try {
+			if (dir != null) {
+				final Path path = Paths.get(dir, name);
+				if (Files.exists(path)) {
+					try (InputStream in = Files.newInputStream(path)) {
+						p.read(in);
+					}
+				}
+			} else {
+				try (InputStream in = Params.class.getResourceAsStream(RESOURCE_DIR + name)) {
+					if (in != null) {
+						p.read(in);
+					}
+				}
+			}
+		} catch (final IOException e) {
+			throw new IllegalStateException("Could not read " + name, e);
+		}
+		return p;
+	}
+
+	/**
+	 * @param width   - The width of the map.
+	 * @param players - The number of players.
+	 * @return - The name of the format's file, e.g. "32-2p.properties".
+	 */
+	public static String fileName(final int width, final int players) {
+		return width + "-" + players + "p.properties";
+	}
+
+	/**
+	 * @return - A copy, which can be changed without changing this.
+	 */
+	public Params copy() {
+		final Params p = new Params(width, players);
+		System.arraycopy(values, 0, p.values, 0, values.length);
+		return p;
+	}
+
+	public double get(final Param param) {
+		return values[param.ordinal()];
+	}
+
+	public int getInt(final Param param) {
+		return (int) Math.round(values[param.ordinal()]);
+	}
+
+	/**
+	 * @param param
+	 * @param value - Clamped to the parameter's range.
+	 */
+	public void set(final Param param, final double value) {
+		values[param.ordinal()] = param.fit(value);
+	}
+
+	/**
+	 * @param assignment - "NAME=value", e.g. "RAMMING_RATIO=2".
+	 */
+	public void set(final String assignment) {
+		final int equals = assignment.indexOf('=');
+		if (equals < 0) {
+			throw new IllegalArgumentException("Expected NAME=value, not " + assignment);
+		}
+		set(param(assignment.substring(0, equals).trim()), Double.parseDouble(assignment.substring(equals + 1).trim()));
+	}
+
+	/**
+	 * Overrides the parameters given in a properties file.
+	 *
+	 * @param in
+	 * @throws IOException
+	 */
+	public void read(final InputStream in) throws IOException {
+		final Properties properties = new Properties();
+		properties.load(in);
+		for (final String name : properties.stringPropertyNames()) {
+			set(param(name), Double.parseDouble(properties.getProperty(name).trim()));
+		}
+	}
+
+	/**
+	 * Writes every parameter to the format's file in the given directory.
+	 *
+	 * @param dir
+	 * @param comment - A line to put at the top of the file.
+	 * @return - The file written.
+	 */
+	public Path save(final Path dir, final String comment) {
+		final Path path = dir.resolve(fileName(width, players));
+		try {
+			Files.createDirectories(dir);
+			try (BufferedWriter out = Files.newBufferedWriter(path, StandardCharsets.ISO_8859_1)) {
+				out.write("# " + comment);
+				out.newLine();
+				for (final Param param : Param.values()) {
+					out.write(param.name() + "=" + format(param));
+					out.newLine();
+				}
+			}
+		} catch (final IOException e) {
+			throw new IllegalStateException("Could not write " + path, e);
+		}
+		return path;
+	}
+
+	private String format(final Param param) {
+		return param.integer ? Integer.toString(getInt(param)) : Double.toString(get(param));
+	}
+
+	private static Param param(final String name) {
+		try {
+			return Param.valueOf(name);
+		} catch (final IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown parameter " + name, e);
+		}
+	}
+
+	@Override
+	public String toString() {
+		final StringBuilder s = new StringBuilder();
+		for (final Param param : Param.values()) {
+			s.append(s.length() == 0 ? "" : ", ").append(param.name()).append('=').append(format(param));
+		}
+		return s.toString();
+	}
+}
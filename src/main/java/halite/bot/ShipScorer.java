@@ -0,0 +1,160 @@
+package halite.bot;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import halite.hlt.Constants;
+import halite.hlt.GameMap;
+import halite.hlt.MapCell;
+import halite.hlt.Player;
+import halite.hlt.Ship;
+
+/**
+ * Scores every cell of the map for a batch of ships, keeping each ship's best
+ * cells in its own {@link TopK}.
+ *
+ * A ship's scores only depend on its position and on per-cell data that is
+ * read-only while scoring, and every ship writes to its own buffer. Scoring the
+ * ships on several threads therefore gives exactly the same results (and so the
+ * same targets and commands) as scoring them one after the other, as long as
+ * the deadline isn't reached.
+ *
+ * A scorer with several threads owns a pool: close it once the game is over.
+ */
+final class ShipScorer implements AutoCloseable {
+	/** Batches with fewer ships than this are scored on the calling thread. */
+	private static final int MIN_PARALLEL_SHIPS = 4;
+
+	private final ForkJoinPool pool;
+	private final List<TopK> results = new ArrayList<>();
+
+	private GameMap gameMap;
+	private Player me;
+	private boolean is2p;
+	private int radius;
+	private int[] distToBase;
+	private List<Ship> ships;
+	private int capacity;
+	private long deadline;
+
+	/**
+	 * @param threads - The number of threads to score on. 1 scores every ship on
+	 *                the calling thread.
+	 */
+	ShipScorer(final int threads) {
+		this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+	}
+
+	/**
+	 * Stops the scoring threads.
+	 */
+	@Override
+	public void close() {
+		if (pool != null) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Scores the map for every given ship.
+	 *
+	 * @param gameMap
+	 * @param me
+	 * @param is2p
+	 * @param radius     - The radius the surrounding halite was summed over.
+	 * @param distToBase - The distance from each cell to base.
+	 * @param ships      - The ships to score the map for.
+	 * @param capacity   - How many of the best cells to keep for each ship.
+	 * @param deadline   - The {@link System#nanoTime()} after which no more ships
+	 *                   are scored; their results are left empty.
+	 */
+	void score(final GameMap gameMap, final Player me, final boolean is2p, final int radius,
+			final int[] distToBase, final List<Ship> ships, final int capacity, final long deadline) {
+		this.gameMap = gameMap;
+		this.me = me;
+		this.is2p = is2p;
+		this.radius = radius;
+		this.distToBase = distToBase;
+		this.ships = ships;
+		this.capacity = capacity;
+		this.deadline = deadline;
+		while (results.size() < ships.size()) {
+			results.add(new TopK(capacity));
+		}
+
+		if (pool == null || ships.size() < MIN_PARALLEL_SHIPS) {
+			for (int i = 0; i < ships.size(); i++) {
+				scoreShip(i);
+			}
+		} else {
+			pool.invoke(new ScoreTask(0, ships.size()));
+		}
+	}
+
+	/**
+	 * @param i
+	 * @return - The best cells of the i-th ship passed to the last
+	 *         {@link #score} call, best first.
+	 */
+	TopK result(final int i) {
+		return results.get(i);
+	}
+
+	private void scoreShip(final int s) {
+		final TopK topK = results.get(s);
+		final int shipCell = gameMap.index(ships.get(s).position);
+		final int[] halite = gameMap.halite;
+		final int mapSize = gameMap.size();
+
+		topK.reset(capacity);
+		if (System.nanoTime() - deadline >= 0) {
+			return;
+		}
+		for (int i = 0; i < mapSize; i++) {
+			final MapCell cell = gameMap.cellAt[i];
+			if (cell.hasStructure()) {
+				continue;
+			}
+			final double dist = gameMap.distance(shipCell, i);
+			double baseValue = halite[i]
+					+ (gameMap.surroundingHalite[i] - halite[i]) / (2 * radius * (radius + 1));
+			if (is2p && cell.isOccupied() && !cell.ship.belongsTo(me)
+					&& gameMap.numNearbyAllies[i] > gameMap.numNearbyEnemies[i]) {
+				baseValue += cell.ship.halite;
+			}
+			final double value = gameMap.inspirationEnabled[i]
+					? (baseValue + (halite[i] * Constants.INSPIRED_BONUS_MULTIPLIER))
+					: baseValue;
+			topK.offer(i, value / (dist + distToBase[i]));
+		}
+		topK.sort();
+	}
+
+	/**
+	 * Scores a range of ships, splitting it in half until it is small enough.
+	 */
+	private final class ScoreTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final int from;
+		private final int to;
+
+		ScoreTask(final int from, final int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= 1) {
+				for (int i = from; i < to; i++) {
+					scoreShip(i);
+				}
+				return;
+			}
+			final int mid = (from + to) >>> 1;
+			invokeAll(new ScoreTask(from, mid), new ScoreTask(mid, to));
+		}
+	}
+}
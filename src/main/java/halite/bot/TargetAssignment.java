@@ -0,0 +1,233 @@
+package halite.bot;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import halite.hlt.Ship;
+
+/**
+ * Matches ships to target cells so that the total score of the matching is
+ * (close to) maximal, using the auction algorithm over each ship's top-K
+ * candidate cells.
+ *
+ * Ships bid for their best candidate, raising its price by the margin over
+ * their second-best option; a ship that is outbid goes back to bidding. Epsilon
+ * scaling is used to converge quickly, and the solver stops at a deadline,
+ * keeping the result of the last completed round. Ships left without a target
+ * are then matched greedily to their best remaining candidate.
+ */
+final class TargetAssignment {
+	private static final int NONE = -1;
+	/** How much epsilon shrinks between rounds. */
+	private static final double EPSILON_SCALING = 5;
+	/** The final epsilon, relative to the largest score. */
+	private static final double MIN_RELATIVE_EPSILON = 1e-6;
+
+	private final List<Ship> ships = new ArrayList<>();
+	private int[][] candidates = new int[0][];
+	private double[][] scores = new double[0][];
+	private int[] candidateCount = new int[0];
+	private int[] target = new int[0];
+	private int[] best = new int[0];
+
+	private final double[] price;
+	private final int[] owner;
+	private final int[] unassigned;
+
+	TargetAssignment(final int mapSize) {
+		price = new double[mapSize];
+		owner = new int[mapSize];
+		unassigned = new int[mapSize];
+		Arrays.fill(owner, NONE);
+	}
+
+	/**
+	 * Removes every ship from the problem.
+	 */
+	void reset() {
+		ships.clear();
+	}
+
+	/**
+	 * Adds a ship and its candidate targets to the problem.
+	 *
+	 * @param ship
+	 * @param topK - The ship's best cells and their scores (sorted or not).
+	 */
+	void add(final Ship ship, final TopK topK) {
+		final int i = ships.size();
+		ships.add(ship);
+		if (i == candidates.length) {
+			final int capacity = Math.max(16, 2 * i);
+			candidates = Arrays.copyOf(candidates, capacity);
+			scores = Arrays.copyOf(scores, capacity);
+			candidateCount = Arrays.copyOf(candidateCount, capacity);
+			target = Arrays.copyOf(target, capacity);
+			best = Arrays.copyOf(best, capacity);
+		}
+		if (candidates[i] == null || candidates[i].length < topK.size()) {
+			final int length = candidates[i] == null ? topK.size() : Math.max(topK.size(), 2 * candidates[i].length);
+			candidates[i] = new int[length];
+			scores[i] = new double[length];
+		}
+		for (int k = 0; k < topK.size(); k++) {
+			candidates[i][k] = topK.cell(k);
+			scores[i][k] = topK.score(k);
+		}
+		candidateCount[i] = topK.size();
+	}
+
+	int size() {
+		return ships.size();
+	}
+
+	Ship ship(final int i) {
+		return ships.get(i);
+	}
+
+	/**
+	 * @param i
+	 * @return - The cell index assigned to the i-th ship, or -1 if it has none.
+	 */
+	int target(final int i) {
+		return best[i];
+	}
+
+	/**
+	 * Solves the assignment problem.
+	 *
+	 * @param deadline - The {@link System#nanoTime()} by which to stop refining
+	 *                 the matching.
+	 */
+	void solve(final long deadline) {
+		final int n = ships.size();
+		double maxScore = 0;
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < candidateCount[i]; k++) {
+				if (Double.isFinite(scores[i][k])) {
+					maxScore = Math.max(maxScore, scores[i][k]);
+				}
+			}
+		}
+		// Infinite/NaN scores (a zero distance) are treated as better than anything.
+		final double cap = 2 * maxScore + 1;
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < candidateCount[i]; k++) {
+				if (!Double.isFinite(scores[i][k])) {
+					scores[i][k] = cap;
+				}
+			}
+		}
+
+		Arrays.fill(best, 0, n, NONE);
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < candidateCount[i]; k++) {
+				price[candidates[i][k]] = 0;
+			}
+		}
+		final double minEpsilon = Math.max(cap * MIN_RELATIVE_EPSILON, Double.MIN_NORMAL);
+		for (double epsilon = cap / EPSILON_SCALING; n > 0; epsilon /= EPSILON_SCALING) {
+			epsilon = Math.max(epsilon, minEpsilon);
+			if (!auction(epsilon, deadline)) {
+				break;
+			}
+			System.arraycopy(target, 0, best, 0, n);
+			if (epsilon <= minEpsilon) {
+				break;
+			}
+		}
+
+		// Clear the owners for the next turn, and greedily give any ship that is
+		// still unassigned its best free candidate.
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < candidateCount[i]; k++) {
+				owner[candidates[i][k]] = NONE;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (best[i] != NONE) {
+				owner[best[i]] = i;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (best[i] != NONE) {
+				continue;
+			}
+			int choice = NONE;
+			for (int k = 0; k < candidateCount[i]; k++) {
+				final int cell = candidates[i][k];
+				if (owner[cell] == NONE && (choice == NONE || scores[i][k] > scores[i][choice])) {
+					choice = k;
+				}
+			}
+			if (choice != NONE) {
+				best[i] = candidates[i][choice];
+				owner[best[i]] = i;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (best[i] != NONE) {
+				owner[best[i]] = NONE;
+			}
+		}
+	}
+
+	/**
+	 * Runs one round of the auction from scratch (keeping the prices).
+	 *
+	 * @return - False if the deadline passed before every ship was assigned.
+	 */
+	private boolean auction(final double epsilon, final long deadline) {
+		final int n = ships.size();
+		for (int i = 0; i < n; i++) {
+			for (int k = 0; k < candidateCount[i]; k++) {
+				owner[candidates[i][k]] = NONE;
+			}
+		}
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < n; i++) {
+			target[i] = NONE;
+			if (candidateCount[i] > 0) {
+				unassigned[tail++ % unassigned.length] = i;
+			}
+		}
+
+		int bids = 0;
+		while (head != tail) {
+			if ((++bids & 63) == 0 && System.nanoTime() - deadline > 0) {
+				return false;
+			}
+			final int i = unassigned[head++ % unassigned.length];
+
+			int bestK = NONE;
+			double bestValue = Double.NEGATIVE_INFINITY;
+			double secondValue = Double.NEGATIVE_INFINITY;
+			for (int k = 0; k < candidateCount[i]; k++) {
+				final double value = scores[i][k] - price[candidates[i][k]];
+				if (value > bestValue) {
+					secondValue = bestValue;
+					bestValue = value;
+					bestK = k;
+				} else if (value > secondValue) {
+					secondValue = value;
+				}
+			}
+			if (secondValue == Double.NEGATIVE_INFINITY) {
+				secondValue = bestValue;
+			}
+
+			final int cell = candidates[i][bestK];
+			price[cell] += bestValue - secondValue + epsilon;
+			final int previous = owner[cell];
+			owner[cell] = i;
+			target[i] = cell;
+			if (previous != NONE) {
+				target[previous] = NONE;
+				unassigned[tail++ % unassigned.length] = previous;
+			}
+		}
+		return true;
+	}
+}
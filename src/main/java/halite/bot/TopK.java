@@ -0,0 +1,135 @@
+package halite.bot;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the K best-scoring cells offered to it, using a bounded min-heap over
+ * primitive cell indices and scores. Higher scores are better; equal scores are
+ * broken in favour of the lower cell index, so the result matches a stable
+ * descending sort of all the offered cells.
+ */
+final class TopK {
+	private int[] cells;
+	private double[] scores;
+	private int size;
+	private int capacity;
+
+	TopK(final int capacity) {
+		this.cells = new int[capacity];
+		this.scores = new double[capacity];
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Empties the heap and sets how many cells it keeps.
+	 *
+	 * @param capacity - K
+	 */
+	void reset(final int capacity) {
+		if (capacity > cells.length) {
+			// Grow ahead of the fleet, rather than by one ship at a time.
+			final int length = Math.max(capacity, 2 * cells.length);
+			cells = Arrays.copyOf(cells, length);
+			scores = Arrays.copyOf(scores, length);
+		}
+		this.capacity = capacity;
+		this.size = 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @param i
+	 * @return - The i-th cell index (best first, once {@link #sort()} has been
+	 *         called).
+	 */
+	int cell(final int i) {
+		return cells[i];
+	}
+
+	/**
+	 * @param i
+	 * @return - The i-th score (best first, once {@link #sort()} has been called).
+	 */
+	double score(final int i) {
+		return scores[i];
+	}
+
+	/**
+	 * Offers a cell to the heap, keeping it only if it is among the K best seen
+	 * so far.
+	 *
+	 * @param cell
+	 * @param score
+	 */
+	void offer(final int cell, final double score) {
+		if (size < capacity) {
+			cells[size] = cell;
+			scores[size] = score;
+			siftUp(size++);
+		} else if (capacity > 0 && isBetter(cell, score, cells[0], scores[0])) {
+			cells[0] = cell;
+			scores[0] = score;
+			siftDown(0, size);
+		}
+	}
+
+	/**
+	 * Sorts the kept cells best first. The heap must be {@link #reset(int)} before
+	 * it is offered any more cells.
+	 */
+	void sort() {
+		// Heap sort: repeatedly move the worst remaining entry to the end.
+		for (int end = size - 1; end > 0; --end) {
+			swap(0, end);
+			siftDown(0, end);
+		}
+	}
+
+	private static boolean isBetter(final int cellA, final double scoreA, final int cellB, final double scoreB) {
+		final int cmp = Double.compare(scoreA, scoreB);
+		return cmp > 0 || (cmp == 0 && cellA < cellB);
+	}
+
+	private boolean isBetter(final int a, final int b) {
+		return isBetter(cells[a], scores[a], cells[b], scores[b]);
+	}
+
+	private void siftUp(int i) {
+		while (i > 0) {
+			final int parent = (i - 1) / 2;
+			if (!isBetter(parent, i)) {
+				break;
+			}
+			swap(i, parent);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int i, final int end) {
+		for (;;) {
+			final int left = 2 * i + 1;
+			if (left >= end) {
+				break;
+			}
+			final int right = left + 1;
+			final int worst = (right < end && isBetter(left, right)) ? right : left;
+			if (!isBetter(i, worst)) {
+				break;
+			}
+			swap(i, worst);
+			i = worst;
+		}
+	}
+
+	private void swap(final int a, final int b) {
+		final int cell = cells[a];
+		cells[a] = cells[b];
+		cells[b] = cell;
+		final double score = scores[a];
+		scores[a] = scores[b];
+		scores[b] = score;
+	}
+}
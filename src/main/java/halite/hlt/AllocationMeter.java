@@ -0,0 +1,52 @@
+package halite.hlt;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures how many bytes the current thread allocates, using the HotSpot
+ * extension of {@link java.lang.management.ThreadMXBean}. On JVMs that don't
+ * support it, every measurement is 0.
+ */
+public class AllocationMeter {
+	private final com.sun.management.ThreadMXBean bean;
+	private long start;
+
+	public AllocationMeter() {
+		final java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean
+				&& ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+			bean = (com.sun.management.ThreadMXBean) threads;
+			bean.setThreadAllocatedMemoryEnabled(true);
+		} else {
+			bean = null;
+		}
+	}
+
+	/**
+	 * @return - True if allocations can be measured on this JVM.
+	 */
+	public boolean isSupported() {
+		return bean != null;
+	}
+
+	/**
+	 * Starts a measurement.
+	 */
+	public void start() {
+		start = allocated();
+	}
+
+	/**
+	 * @return - The bytes allocated by the current thread since {@link #start()}.
+	 */
+	public long stop() {
+		return allocated() - start;
+	}
+
+	/**
+	 * @return - The bytes allocated by the current thread so far.
+	 */
+	public long allocated() {
+		return bean == null ? 0 : bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}
@@ -1,22 +1,51 @@
 package halite.hlt;
 
+/**
+ * A command for the engine, kept as primitives so it can be written out
+ * without building a string.
+ */
 public class Command {
-	public final String command;
+	public static final char SPAWN = 'g';
+	public static final char CONSTRUCT = 'c';
+	public static final char MOVE = 'm';
+
+	private static final Command SPAWN_SHIP = new Command(SPAWN, EntityId.NONE.id, ' ');
+
+	/** One of {@link #SPAWN}, {@link #CONSTRUCT} or {@link #MOVE}. */
+	public final char type;
+	/** The id of the ship the command is for (-1 for a spawn). */
+	public final int shipId;
+	/** The direction of a move ({@link Direction#charValue}). */
+	public final char direction;
 
 	public static Command spawnShip() {
-		return new Command("g");
+		return SPAWN_SHIP;
 	}
 
 	public static Command transformShipIntoDropoffSite(final EntityId id) {
-		return new Command("c " + id);
+		return new Command(CONSTRUCT, id.id, ' ');
 	}
 
 	public static Command move(final EntityId id, final Direction direction) {
-		return new Command("m " + id + ' ' + direction.charValue);
+		return new Command(MOVE, id.id, direction.charValue);
 	}
 
-	private Command(final String command) {
-		this.command = command;
+	private Command(final char type, final int shipId, final char direction) {
+		this.type = type;
+		this.shipId = shipId;
+		this.direction = direction;
+	}
+
+	@Override
+	public String toString() {
+		switch (type) {
+		case MOVE:
+			return "m " + shipId + ' ' + direction;
+		case CONSTRUCT:
+			return "c " + shipId;
+		default:
+			return "g";
+		}
 	}
 
 	@Override
@@ -26,11 +55,14 @@ public class Command {
 
 		Command command1 = (Command) o;
 
-		return command.equals(command1.command);
+		return type == command1.type && shipId == command1.shipId && direction == command1.direction;
 	}
 
 	@Override
 	public int hashCode() {
-		return command.hashCode();
+		int result = type;
+		result = 31 * result + shipId;
+		result = 31 * result + direction;
+		return result;
 	}
 }
@@ -0,0 +1,145 @@
+package halite.hlt;
+
+import java.util.Arrays;
+
+/**
+ * Sums the values of a per-cell grid over the Manhattan "diamond" (every cell
+ * within a given radius, as returned by {@link GameMap#getCircle}) around every
+ * cell of the toroidal map.
+ *
+ * The map is padded by the radius on every side (wrapping around), then rotated
+ * 45 degrees (u = x + y, v = x - y) so that each diamond becomes an axis-aligned
+ * square. A 2D prefix sum over the rotated grid then answers each diamond in
+ * constant time, making a whole-map pass O(width * height) for any radius.
+ *
+ * The diamond must not wrap onto itself, i.e. 2 * radius + 1 may not exceed the
+ * width or height of the map.
+ */
+public class DiamondSum {
+	private final int width;
+	private final int height;
+	private long[] prefix = new long[0];
+
+	public DiamondSum(final int width, final int height) {
+		this.width = width;
+		this.height = height;
+	}
+
+	/**
+	 * @param radius
+	 * @return - The number of cells within the given radius of a cell.
+	 */
+	public static int area(final int radius) {
+		return 2 * radius * (radius + 1) + 1;
+	}
+
+	/**
+	 * Lists the (dx, dy) offsets of every cell within the given radius of a cell.
+	 *
+	 * @param radius
+	 * @return - Two arrays of length {@link #area(int)}: the x offsets and the y
+	 *         offsets.
+	 */
+	public static int[][] offsets(final int radius) {
+		final int[][] offsets = new int[2][area(radius)];
+		int i = 0;
+		for (int dy = -radius; dy <= radius; ++dy) {
+			final int span = radius - Math.abs(dy);
+			for (int dx = -span; dx <= span; ++dx) {
+				offsets[0][i] = dx;
+				offsets[1][i] = dy;
+				i++;
+			}
+		}
+		return offsets;
+	}
+
+	/**
+	 * Sums the grid over the diamond of the given radius around every cell.
+	 *
+	 * @param grid   - The per-cell values, indexed by cell index.
+	 * @param radius - The radius of the diamond.
+	 * @param out    - Receives the per-cell sums, indexed by cell index.
+	 */
+	public void sum(final int[] grid, final int radius, final int[] out) {
+		final int n = build(grid, radius);
+		final int q = height + 2 * radius;
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				out[y * width + x] = (int) query(n, x + y + 2 * radius, x - y + q - 1, radius);
+			}
+		}
+	}
+
+	/**
+	 * Sums the grid over the diamond of the given radius around every cell.
+	 *
+	 * @param grid   - The per-cell values, indexed by cell index.
+	 * @param radius - The radius of the diamond.
+	 * @param out    - Receives the per-cell sums, indexed by cell index.
+	 */
+	public void sum(final int[] grid, final int radius, final double[] out) {
+		final int n = build(grid, radius);
+		final int q = height + 2 * radius;
+		for (int y = 0; y < height; ++y) {
+			for (int x = 0; x < width; ++x) {
+				out[y * width + x] = query(n, x + y + 2 * radius, x - y + q - 1, radius);
+			}
+		}
+	}
+
+	/**
+	 * Builds the prefix sums of the padded, rotated grid.
+	 *
+	 * @return - The side length of the rotated grid.
+	 */
+	private int build(final int[] grid, final int radius) {
+		if (2 * radius + 1 > Math.min(width, height)) {
+			throw new IllegalArgumentException(
+					"Radius " + radius + " wraps around a " + width + "x" + height + " map");
+		}
+		final int p = width + 2 * radius;
+		final int q = height + 2 * radius;
+		final int n = p + q - 1;
+		final int stride = n + 1;
+		if (prefix.length < stride * stride) {
+			prefix = new long[stride * stride];
+		} else {
+			Arrays.fill(prefix, 0, stride * stride, 0);
+		}
+
+		// Scatter the padded grid into the rotated grid (offset by one for the
+		// prefix sums' zero row/column).
+		for (int py = 0; py < q; ++py) {
+			final int y = Math.floorMod(py - radius, height);
+			for (int px = 0; px < p; ++px) {
+				final int x = Math.floorMod(px - radius, width);
+				final int u = px + py;
+				final int v = px - py + q - 1;
+				prefix[(u + 1) * stride + v + 1] = grid[y * width + x];
+			}
+		}
+
+		for (int u = 1; u <= n; ++u) {
+			long row = 0;
+			for (int v = 1; v <= n; ++v) {
+				row += prefix[u * stride + v];
+				prefix[u * stride + v] = prefix[(u - 1) * stride + v] + row;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Sums the square of the rotated grid centered on (u, v).
+	 */
+	private long query(final int n, final int u, final int v, final int radius) {
+		final int stride = n + 1;
+		final int u0 = u - radius;
+		final int u1 = u + radius + 1;
+		final int v0 = v - radius;
+		final int v1 = v + radius + 1;
+		return prefix[u1 * stride + v1] - prefix[u0 * stride + v1] - prefix[u1 * stride + v0]
+				+ prefix[u0 * stride + v0];
+	}
+}
@@ -0,0 +1,108 @@
+package halite.hlt;
+
+import java.util.Arrays;
+
+/**
+ * The distance from every cell of the map to the nearest of a set of source
+ * cells (e.g. dropoffs), computed with a multi-source breadth-first search over
+ * the toroidal map.
+ *
+ * When several sources are equally near a cell, the one listed first wins. The
+ * field is only recomputed when the set of sources changes.
+ */
+public class DistanceField {
+	/** The distance from each cell to its nearest source. */
+	public final int[] distance;
+	/** The cell index of the nearest source of each cell. */
+	public final int[] nearest;
+
+	private final GameMap map;
+	private final int[] rank;
+	private final int[] queue;
+	private int[] sources = new int[0];
+	private int version = 0;
+
+	public DistanceField(final GameMap map) {
+		this.map = map;
+		distance = new int[map.size()];
+		nearest = new int[map.size()];
+		rank = new int[map.size()];
+		queue = new int[map.size()];
+	}
+
+	/**
+	 * @return - A number that changes every time the field is recomputed.
+	 */
+	public int version() {
+		return version;
+	}
+
+	/**
+	 * Recomputes the field for the given sources, unless they are the same as the
+	 * last time.
+	 *
+	 * @param newSources - The source cell indices, in order of preference.
+	 * @param count      - The number of sources to read from the array.
+	 * @return - True if the field was recomputed.
+	 */
+	public boolean update(final int[] newSources, final int count) {
+		if (count == sources.length) {
+			int same = 0;
+			while (same < count && sources[same] == newSources[same]) {
+				same++;
+			}
+			if (same == count) {
+				return false;
+			}
+		}
+		sources = Arrays.copyOf(newSources, count);
+		version++;
+
+		Arrays.fill(distance, -1);
+		int tail = 0;
+		for (int r = 0; r < count; ++r) {
+			final int s = sources[r];
+			if (distance[s] == -1) {
+				distance[s] = 0;
+				nearest[s] = s;
+				rank[s] = r;
+				queue[tail++] = s;
+			}
+		}
+
+		// Every cell at distance d is dequeued before any cell at distance d + 1, so
+		// a cell's rank is final by the time it is expanded.
+		for (int head = 0; head < tail; ++head) {
+			final int c = queue[head];
+			final int x = map.x(c);
+			final int y = map.y(c);
+			for (int d = 0; d < 4; ++d) {
+				final int n;
+				switch (d) {
+				case 0:
+					n = map.normalize(x, y - 1);
+					break;
+				case 1:
+					n = map.normalize(x, y + 1);
+					break;
+				case 2:
+					n = map.normalize(x + 1, y);
+					break;
+				default:
+					n = map.normalize(x - 1, y);
+					break;
+				}
+				if (distance[n] == -1) {
+					distance[n] = distance[c] + 1;
+					nearest[n] = nearest[c];
+					rank[n] = rank[c];
+					queue[tail++] = n;
+				} else if (distance[n] == distance[c] + 1 && rank[c] < rank[n]) {
+					nearest[n] = nearest[c];
+					rank[n] = rank[c];
+				}
+			}
+		}
+		return true;
+	}
+}
@@ -3,7 +3,8 @@ package halite.hlt;
 public class Entity {
 	public final PlayerId owner;
 	public final EntityId id;
-	public final Position position;
+	/** Only ever changes for ships, which move in place from turn to turn. */
+	public Position position;
 
 	public Entity(final PlayerId owner, final EntityId id, final Position position) {
 		this.owner = owner;
@@ -3,11 +3,14 @@ package halite.hlt;
 import java.io.FileWriter;
 import java.io.IOException;
 
+import halite.hlt.Log.Category;
+
 public class F_Log {
 	private final FileWriter file;
 
 	private static F_Log INSTANCE;
 	private static int TURN_NUMBER = 1;
+	private static final Object[] NO_ARGS = {};
 
 	private F_Log(final FileWriter f) {
 		this.file = f;
@@ -44,10 +47,47 @@ public class F_Log {
 			return;
 		}
 
-		try {
-			INSTANCE.file.append(String.format(message, args)).append('\n').flush();
-		} catch (final IOException e) {
-			e.printStackTrace();
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.TEXT, 0, 0, 0, message, null, args);
+	}
+
+	/**
+	 * @param category
+	 * @return - True if the f-log is open and the category is logged.
+	 */
+	public static boolean enabled(final Category category) {
+		return INSTANCE != null && Log.enabled(category);
+	}
+
+	public static void log(final Category category, final Position pos, final String color) {
+		if (enabled(category)) {
+			log(pos, color);
+		}
+	}
+
+	public static void log(final Category category, final Position pos, final String color, final String msg) {
+		if (enabled(category)) {
+			LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.CELL, TURN_NUMBER, pos.x, pos.y, msg, color, NO_ARGS);
+		}
+	}
+
+	public static void log(final Category category, final Position pos, final String color, final String msg,
+			final Object arg) {
+		if (enabled(category)) {
+			log(pos, color, msg, arg);
+		}
+	}
+
+	public static void log(final Category category, final Position pos, final String color, final String msg,
+			final int arg) {
+		if (enabled(category)) {
+			LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.CELL, TURN_NUMBER, pos.x, pos.y, msg, color, arg);
+		}
+	}
+
+	public static void log(final Category category, final Position pos, final String color, final String msg,
+			final double arg) {
+		if (enabled(category)) {
+			LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.CELL, TURN_NUMBER, pos.x, pos.y, msg, color, arg);
 		}
 	}
 
@@ -69,20 +109,7 @@ public class F_Log {
 			return;
 		}
 
-		final String message;
-		if (color.equals("")) {
-			message = String.format("{\"t\": %d, \"x\": %d, \"y\": %d, \"msg\": \"%s\"},",
-				TURN_NUMBER, pos.x, pos.y, String.format(msg, msgArgs));
-		} else {
-			message = String.format("{\"t\": %d, \"x\": %d, \"y\": %d, \"msg\": \"%s\", \"color\": \"%s\"},",
-				TURN_NUMBER, pos.x, pos.y, String.format(msg, msgArgs), color);
-		}
-
-		try {
-			INSTANCE.file.append(String.format(message)).append('\n').flush();
-		} catch (final IOException e) {
-			e.printStackTrace();
-		}
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.CELL, TURN_NUMBER, pos.x, pos.y, msg, color, msgArgs);
 	}
 
 	/**
@@ -101,13 +128,6 @@ public class F_Log {
 			return;
 		}
 
-		final String message = String.format("{\"t\": %d, \"x\": %d, \"y\": %d, \"color\": \"%s\"},", TURN_NUMBER,
-				pos.x, pos.y, color);
-
-		try {
-			INSTANCE.file.append(String.format(message)).append('\n').flush();
-		} catch (final IOException e) {
-			e.printStackTrace();
-		}
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.COLOR, TURN_NUMBER, pos.x, pos.y, null, color, null);
 	}
 }
\ No newline at end of file
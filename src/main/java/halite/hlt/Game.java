@@ -1,5 +1,7 @@
 package halite.hlt;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.util.ArrayList;
 import java.util.Collection;
 
@@ -9,15 +11,26 @@ public class Game {
 	public final ArrayList<Player> players = new ArrayList<>();
 	public final Player me;
 	public final GameMap gameMap;
+	/** The reader of the engine's messages. */
+	public final Input input;
+	/** The writer of the bot's messages to the engine. */
+	public final Output output;
+	/** The collections of the current turn, emptied by {@link #updateFrame()}. */
+	public final TurnArena arena = new TurnArena();
 
 	public Game() {
 		this(false, false);
 	}
 
 	public Game(final boolean debug, final boolean local) {
-		Constants.populateConstants(Input.readLine());
+		this(debug, local, new Input(System.in), new Output(new FileOutputStream(FileDescriptor.out)));
+	}
+
+	public Game(final boolean debug, final boolean local, final Input input, final Output output) {
+		this.input = input;
+		this.output = output;
+		Constants.populateConstants(input.readLine());
 
-		final Input input = Input.readInput();
 		final int numPlayers = input.getInt();
 		myId = new PlayerId(input.getInt());
 
@@ -28,52 +41,54 @@ public class Game {
 		}
 
 		for (int i = 0; i < numPlayers; ++i) {
-			players.add(Player._generate());
+			players.add(Player._generate(input));
 		}
 		me = players.get(myId.id);
-		gameMap = GameMap._generate(me, debug);
+		gameMap = GameMap._generate(input, me, debug);
+		for (final Player player : players) {
+			gameMap.addStructure(player.shipyard);
+		}
 	}
 
 	public void ready(final String name) {
-		System.out.println(name);
+		output.writeLine(name);
 	}
 
 	public void updateFrame() {
-		turnNumber = Input.readInput().getInt();
-		Log.log("=============== TURN %d ================", turnNumber);
+		turnNumber = input.getInt();
+		arena.reset();
+		Log.log(Log.Level.INFO, Log.Category.GAME, "=============== TURN %d ================", turnNumber);
 		F_Log.updateTurnNumber(turnNumber);
 
 		for (int i = 0; i < players.size(); ++i) {
-			final Input input = Input.readInput();
-
 			final PlayerId currentPlayerId = new PlayerId(input.getInt());
 			final int numShips = input.getInt();
 			final int numDropoffs = input.getInt();
 			final int halite = input.getInt();
 
-			players.get(currentPlayerId.id)._update(numShips, numDropoffs, halite);
+			players.get(currentPlayerId.id)._update(input, gameMap, numShips, numDropoffs, halite);
 		}
 
-		gameMap._update();
+		gameMap._update(input);
 
 		for (final Player player : players) {
 			for (final Ship ship : player.ships.values()) {
 				gameMap.at(ship).markUnsafe(ship);
 			}
 
-			gameMap.at(player.shipyard).structure = player.shipyard;
-
-			for (final Dropoff dropoff : player.dropoffs.values()) {
-				gameMap.at(dropoff).structure = dropoff;
+			for (final Dropoff dropoff : player.newDropoffs) {
+				gameMap.addStructure(dropoff);
 			}
 		}
+		gameMap.stampOccupancy(players);
+		gameMap.updateDropoffField();
+		gameMap.updateStructureField();
 	}
 
 	public void endTurn(final Collection<Command> commands) {
 		for (final Command command : commands) {
-			System.out.print(command.command);
-			System.out.print(' ');
+			output.write(command);
 		}
-		System.out.println();
+		output.endTurn();
 	}
 }
@@ -1,28 +1,114 @@
 package halite.hlt;
 
 import static halite.hlt.Direction.STILL;
-import static java.util.Comparator.comparing;
-import static java.util.stream.Collectors.toList;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
-import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 public class GameMap {
 	public final int width;
 	public final int height;
 	public final MapCell[][] cells;
 	public List<MapCell> cellsList = new ArrayList<>();
+
+	/*
+	 * Primitive per-cell storage. Every array is indexed by the cell index
+	 * (y * width + x); the MapCells above are only views over these arrays.
+	 */
+	public final MapCell[] cellAt;
+	public final int[] halite;
+	public final int[] mineableHaliteThisTurn;
+	public final double[] surroundingHalite;
+	public final double[] surroundingHaliteDensity;
+	public final boolean[] inspirationEnabled;
+	public final short[] numNearbyAllies;
+	public final short[] numNearbyEnemies;
+	public final int[] nearestDropoff;
+	public final int[] distToNearestDropoff;
+	/**
+	 * The distance to the nearest dropoff, blended with any planned future
+	 * dropoffs (see {@link #blendFutureDropoffs(List)}).
+	 */
+	public final int[] distToBase;
+
+	/*
+	 * Lookup tables built once in the pre-game. cellX/cellY map a cell index to
+	 * its coordinates, wrapX/wrapY map a coordinate in [-width, 2 * width) to its
+	 * normalized value (offset by width), and distX/distY map an absolute
+	 * coordinate difference to the toroidal distance along that axis.
+	 */
+	private final int[] cellX;
+	private final int[] cellY;
+	private final int[] wrapX;
+	private final int[] wrapY;
+	private final int[] distX;
+	private final int[] distY;
+	/**
+	 * Ships with the most halite are navigated first; ties go to the oldest ship,
+	 * so the order doesn't depend on how the paths map happens to be hashed.
+	 */
+	private static final Comparator<Ship> RICHEST_FIRST = Comparator.comparingInt((Ship s) -> s.halite).reversed()
+			.thenComparingInt(s -> s.id.id);
+	/** The cardinal directions, in the order neighbors are considered. */
+	private static final Direction[] CARDINALS = Direction.ALL_CARDINALS.toArray(new Direction[0]);
+	/**
+	 * The index of the adjacent cell in each cardinal direction, indexed by
+	 * [direction.ordinal()][cell].
+	 */
+	public final int[][] neighbor;
+
+	/** Reusable engine for summing per-cell grids over a radius. */
+	public final DiamondSum diamondSum;
+
+	/** The distance from every cell to my nearest shipyard/dropoff. */
+	private final DistanceField dropoffField;
+	private int[] dropoffSources = new int[1];
+	/** Every shipyard and dropoff of every player, in the order they appeared. */
+	public final List<Entity> structures = new ArrayList<>();
+	/** The distance from every cell to the nearest structure of any player. */
+	public final int[] distToNearestStructure;
+	private final DistanceField structureField;
+	private int[] structureSources = new int[4];
+	/** The inputs distToBase was last blended from. */
+	private int blendedVersion = -1;
+	private int[] blendedDropoffs = new int[0];
+	/** Scratch lists reused by every call to navigate(). */
+	private final List<Ship> navigationOrder = new ArrayList<>();
+	private final StableSort<Ship> navigationSort = new StableSort<>();
+	private final List<Ship> waiting = new ArrayList<>();
+
+	/*
+	 * The radius surroundingHalite is maintained for, and the (dx, dy) offsets of
+	 * every cell within that radius.
+	 */
+	public final int surroundingRadius;
+	private final int[] surroundingOffsetX;
+	private final int[] surroundingOffsetY;
+
+	/*
+	 * Ship occupancy counts, indexed by [radius][player][cell]: the number of that
+	 * player's ships within the radius of the cell. occupancyTotal holds the same
+	 * counts summed over all players. Only radii registered through
+	 * trackOccupancy() are maintained.
+	 */
+	private short[][][] occupancy = new short[0][][];
+	private short[][] occupancyTotal = new short[0][];
+	private int[][][] occupancyOffsets = new int[0][][];
+	/** The cells and owners stamped last turn, so they can be unstamped. */
+	private int[] stampedCells = new int[0];
+	private int[] stampedOwners = new int[0];
+	private int stampedCount = 0;
 	public double initialHalite = 0;
 	public double currentFreeHalite = 0;
 	private final Player me;
 	public boolean debug = false;
+	/** How many times richer than a ship an enemy must be for the ship to ram it. */
+	public double rammingRatio = 1.75;
 
 	public GameMap(final int width, final int height, final Player me) {
 		this.width = width;
@@ -33,6 +119,104 @@ public class GameMap {
 		for (int y = 0; y < height; ++y) {
 			cells[y] = new MapCell[width];
 		}
+
+		final int size = width * height;
+		cellAt = new MapCell[size];
+		halite = new int[size];
+		mineableHaliteThisTurn = new int[size];
+		surroundingHalite = new double[size];
+		surroundingHaliteDensity = new double[size];
+		inspirationEnabled = new boolean[size];
+		numNearbyAllies = new short[size];
+		numNearbyEnemies = new short[size];
+
+		cellX = new int[size];
+		cellY = new int[size];
+		for (int i = 0; i < size; ++i) {
+			cellX[i] = i % width;
+			cellY[i] = i / width;
+		}
+		wrapX = new int[3 * width];
+		for (int x = 0; x < wrapX.length; ++x) {
+			wrapX[x] = x % width;
+		}
+		wrapY = new int[3 * height];
+		for (int y = 0; y < wrapY.length; ++y) {
+			wrapY[y] = y % height;
+		}
+		distX = new int[width];
+		for (int dx = 0; dx < width; ++dx) {
+			distX[dx] = Math.min(dx, width - dx);
+		}
+		distY = new int[height];
+		for (int dy = 0; dy < height; ++dy) {
+			distY[dy] = Math.min(dy, height - dy);
+		}
+		neighbor = new int[4][size];
+		for (int i = 0; i < size; ++i) {
+			final int x = cellX[i];
+			final int y = cellY[i];
+			neighbor[Direction.NORTH.ordinal()][i] = index(x, wrapY[y - 1 + height]);
+			neighbor[Direction.EAST.ordinal()][i] = index(wrapX[x + 1 + width], y);
+			neighbor[Direction.SOUTH.ordinal()][i] = index(x, wrapY[y + 1 + height]);
+			neighbor[Direction.WEST.ordinal()][i] = index(wrapX[x - 1 + width], y);
+		}
+		diamondSum = new DiamondSum(width, height);
+		dropoffField = new DistanceField(this);
+		nearestDropoff = dropoffField.nearest;
+		distToNearestDropoff = dropoffField.distance;
+		structureField = new DistanceField(this);
+		distToNearestStructure = structureField.distance;
+		distToBase = new int[size];
+
+		surroundingRadius = Constants.INSPIRATION_RADIUS;
+		final int[][] offsets = DiamondSum.offsets(surroundingRadius);
+		surroundingOffsetX = offsets[0];
+		surroundingOffsetY = offsets[1];
+	}
+
+	/**
+	 * @return - The number of cells on the map.
+	 */
+	public int size() {
+		return cellAt.length;
+	}
+
+	/**
+	 * Converts a pair of (normalized) coordinates into a cell index.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return - The index of the cell in the primitive per-cell arrays.
+	 */
+	public int index(final int x, final int y) {
+		return y * width + x;
+	}
+
+	/**
+	 * Converts a Position into a cell index, accounting for wrap-around.
+	 * 
+	 * @param position
+	 * @return - The index of the cell in the primitive per-cell arrays.
+	 */
+	public int index(final Position position) {
+		return normalize(position.x, position.y);
+	}
+
+	/**
+	 * @param index
+	 * @return - The (normalized) x coordinate of the cell at the given index.
+	 */
+	public int x(final int index) {
+		return cellX[index];
+	}
+
+	/**
+	 * @param index
+	 * @return - The (normalized) y coordinate of the cell at the given index.
+	 */
+	public int y(final int index) {
+		return cellY[index];
 	}
 
 	/**
@@ -51,8 +235,7 @@ public class GameMap {
 	}
 
 	public MapCell at(final Position position) {
-		final Position normalized = normalize(position);
-		return cells[normalized.y][normalized.x];
+		return cellAt[normalize(position.x, position.y)];
 	}
 
 	public MapCell at(final Entity entity) {
@@ -60,8 +243,25 @@ public class GameMap {
 	}
 
 	public MapCell at(final int x, final int y) {
-		final Position pos = new Position(x, y);
-		return at(pos);
+		return cellAt[normalize(x, y)];
+	}
+
+	/**
+	 * @param index - A cell index.
+	 * @return - The cell at the given index.
+	 */
+	public MapCell at(final int index) {
+		return cellAt[index];
+	}
+
+	/**
+	 * @param index     - A cell index.
+	 * @param direction
+	 * @return - The index of the cell one step in the given direction (the cell
+	 *         itself for {@link Direction#STILL}).
+	 */
+	public int neighbor(final int index, final Direction direction) {
+		return direction == STILL ? index : neighbor[direction.ordinal()][index];
 	}
 
 	/**
@@ -71,7 +271,11 @@ public class GameMap {
 	 * @return - The four adjacent neighbouring cells.
 	 */
 	public List<MapCell> getNeighbors(final MapCell cell) {
-		return cell.position.getSurroundingCardinals().stream().map(pos -> at(pos)).collect(toList());
+		final List<MapCell> neighbors = new ArrayList<>(4);
+		for (final Direction d : Direction.ALL_CARDINALS) {
+			neighbors.add(cellAt[neighbor(cell.index, d)]);
+		}
+		return neighbors;
 	}
 
 	/**
@@ -115,16 +319,19 @@ public class GameMap {
 	 * @return - The distance between the two posititions
 	 */
 	public int calculateDistance(final Position source, final Position target) {
-		final Position normalizedSource = normalize(source);
-		final Position normalizedTarget = normalize(target);
-
-		final int dx = Math.abs(normalizedSource.x - normalizedTarget.x);
-		final int dy = Math.abs(normalizedSource.y - normalizedTarget.y);
-
-		final int toroidal_dx = Math.min(dx, width - dx);
-		final int toroidal_dy = Math.min(dy, height - dy);
+		return distance(normalize(source.x, source.y), normalize(target.x, target.y));
+	}
 
-		return toroidal_dx + toroidal_dy;
+	/**
+	 * Compute the Manhattan distance between two cells. Accounts for wrap-around
+	 * and does not allocate.
+	 * 
+	 * @param source - The index of the source cell
+	 * @param target - The index of the target cell
+	 * @return - The distance between the two cells
+	 */
+	public int distance(final int source, final int target) {
+		return distX[Math.abs(cellX[source] - cellX[target])] + distY[Math.abs(cellY[source] - cellY[target])];
 	}
 
 	/**
@@ -136,9 +343,21 @@ public class GameMap {
 	 * @return - A normalized position fitting within the bounds of the map
 	 */
 	public Position normalize(final Position position) {
-		final int x = ((position.x % width) + width) % width;
-		final int y = ((position.y % height) + height) % height;
-		return new Position(x, y);
+		return cellAt[normalize(position.x, position.y)].position;
+	}
+
+	/**
+	 * Normalize a pair of coordinates within the bounds of the toroidal map
+	 * without allocating.
+	 * 
+	 * @param x
+	 * @param y
+	 * @return - The index of the cell the coordinates wrap around to
+	 */
+	public int normalize(final int x, final int y) {
+		final int nx = (x >= -width && x < 2 * width) ? wrapX[x + width] : ((x % width) + width) % width;
+		final int ny = (y >= -height && y < 2 * height) ? wrapY[y + height] : ((y % height) + height) % height;
+		return ny * width + nx;
 	}
 
 	/**
@@ -176,6 +395,41 @@ public class GameMap {
 		return possibleMoves;
 	}
 
+	/**
+	 * Same as {@link #getUnsafeMoves(Position, Position)}, for cell indices and
+	 * without allocating.
+	 * 
+	 * @param source      - The index of the starting cell
+	 * @param destination - The index of the destination cell
+	 * @param moves       - Receives the (at most two) Directions
+	 * @return - The number of Directions written to moves
+	 */
+	public int getUnsafeMoves(final int source, final int destination, final Direction[] moves) {
+		final int sx = cellX[source];
+		final int sy = cellY[source];
+		final int tx = cellX[destination];
+		final int ty = cellY[destination];
+		final int dx = Math.abs(sx - tx);
+		final int dy = Math.abs(sy - ty);
+		final int wrapped_dx = width - dx;
+		final int wrapped_dy = height - dy;
+
+		int count = 0;
+		if (sx < tx) {
+			moves[count++] = dx > wrapped_dx ? Direction.WEST : Direction.EAST;
+		} else if (sx > tx) {
+			moves[count++] = dx < wrapped_dx ? Direction.WEST : Direction.EAST;
+		}
+
+		if (sy < ty) {
+			moves[count++] = dy > wrapped_dy ? Direction.NORTH : Direction.SOUTH;
+		} else if (sy > ty) {
+			moves[count++] = dy < wrapped_dy ? Direction.NORTH : Direction.SOUTH;
+		}
+
+		return count;
+	}
+
 	/**
 	 * Returns the Direction to move closer to the (normalized) adjacent MapCell.
 	 * 
@@ -184,7 +438,37 @@ public class GameMap {
 	 * @return - The Direction towards the neighbor
 	 */
 	public Direction getDirectionToNeighbor(final MapCell source, final MapCell neighbor) {
-		return getDirectionToNeighbor(source.position, neighbor.position);
+		return directionTo(source.index, neighbor.index);
+	}
+
+	/**
+	 * Returns the Direction to move from a cell to an adjacent cell.
+	 * 
+	 * @param source   - The index of the starting cell
+	 * @param neighbor - The index of the adjacent cell
+	 * @return - The Direction towards the neighbor ({@link Direction#STILL} if
+	 *         they are the same cell)
+	 */
+	public Direction directionTo(final int source, final int neighbor) {
+		final int sx = cellX[source];
+		final int sy = cellY[source];
+		final int nx = cellX[neighbor];
+		final int ny = cellY[neighbor];
+		final int dx = Math.abs(sx - nx);
+		final int dy = Math.abs(sy - ny);
+		final int wrapped_dx = width - dx;
+		final int wrapped_dy = height - dy;
+
+		if (sx < nx) {
+			return dx > wrapped_dx ? Direction.WEST : Direction.EAST;
+		} else if (sx > nx) {
+			return dx < wrapped_dx ? Direction.WEST : Direction.EAST;
+		} else if (sy < ny) {
+			return dy > wrapped_dy ? Direction.NORTH : Direction.SOUTH;
+		} else if (sy > ny) {
+			return dy < wrapped_dy ? Direction.NORTH : Direction.SOUTH;
+		}
+		return STILL;
 	}
 
 	/**
@@ -220,7 +504,11 @@ public class GameMap {
 	 * @return - True if the ship has enough halite to move from its current cell.
 	 */
 	public Boolean canShipMove(final Ship ship) {
-		return ship.halite >= Math.floor(at(ship).halite * 0.10);
+		return canShipMove(ship, index(ship.position));
+	}
+
+	private boolean canShipMove(final Ship ship, final int cell) {
+		return ship.halite >= Math.floor(halite[cell] * 0.10);
 	}
 
 	/**
@@ -230,7 +518,12 @@ public class GameMap {
 	 * @return - True if all of the cell's neighbors have a ship on them.
 	 */
 	public Boolean cellIsSurrounded(final MapCell cell) {
-		return cell.position.getSurroundingCardinals().stream().allMatch(pos -> at(pos).isOccupied());
+		for (final int[] n : neighbor) {
+			if (!cellAt[n[cell.index]].isOccupied()) {
+				return false;
+			}
+		}
+		return true;
 	}
 
 	/**
@@ -244,7 +537,19 @@ public class GameMap {
 	 * @return A {@link Direction} that will move a ship closer to its target
 	 */
 	public Direction getDirection(final Position start, final Position goal, final boolean allowCombat) {
-		return getDirection(start, goal, "", allowCombat);
+		return getDirection(start, goal, ShipState.EXPLORING, allowCombat);
+	}
+
+	/**
+	 * Same as {@link #getDirection(Position, Position, boolean)}, for cell indices.
+	 * 
+	 * @param start       - The index of the beginning cell.
+	 * @param goal        - The index of the target cell.
+	 * @param allowCombat - Whether or not "combat" is allowed.
+	 * @return A {@link Direction} that will move a ship closer to its target
+	 */
+	public Direction getDirection(final int start, final int goal, final boolean allowCombat) {
+		return getDirection(start, goal, ShipState.EXPLORING, allowCombat);
 	}
 
 	/**
@@ -254,239 +559,533 @@ public class GameMap {
 	 * 
 	 * @param start       - The beginning position.
 	 * @param goal        - The target position.
-	 * @param shipStatus  - A string representing the ship's current status (e.g.
-	 *                    "exploring", "returning", etc.)
+	 * @param state       - The ship's current state (returning ships avoid
+	 *                    fewer obstacles).
 	 * @param allowCombat - Whether or not "combat" is allowed.
 	 * @return A {@link Direction} that will move a ship closer to its target
 	 */
-	public Direction getDirection(final Position start, final Position goal, final String shipStatus,
+	public Direction getDirection(final Position start, final Position goal, final ShipState state,
 			final boolean allowCombat) {
-		final MapCell startCell = at(start);
-		final int moveCost = (int) Math.floor(startCell.halite * 0.10);
-		final int dist = calculateDistance(start, goal);
-		final boolean returning = "returning".equals(shipStatus);
-		final boolean finalRush = "finalRush".equals(shipStatus);
-		List<MapCell> neighbors = getNeighbors(startCell);
-		MapCell target;
-
-		/**
-		 * This predicate is used to determine whether the neighbor is an acceptable
-		 * target to travel to.
-		 */
-		Predicate<MapCell> neighborIsAcceptable;
-		Predicate<MapCell> cellIsFriendlyDropoff = c -> c.hasStructure() && c.structure.belongsTo(me);
-		Predicate<MapCell> neighborIsOpen = n -> !n.isOccupied();
-		Predicate<MapCell> neighborHasFriendlyShip = n -> n.isOccupied() && n.ship.belongsTo(me);
-		Predicate<MapCell> dropoffIsOccupied = n -> cellIsFriendlyDropoff.test(n) && n.isOccupied()
-				&& !n.ship.belongsTo(me);
-		Predicate<MapCell> enemyShipIsRicher = n -> {
-			if (returning || finalRush) {
-				return allowCombat && n.isOccupied() && !n.ship.belongsTo(me);
-			}
-			return allowCombat && n.isOccupied() && !n.ship.belongsTo(me)
-					&& n.ship.halite + n.halite > (startCell.ship.halite + startCell.halite) * 1.75;
-		};
-		Predicate<MapCell> enemyPredictedHere = n -> {
-			// If the neighbor is a friendly dropoff (or if combat is allowed), don't worry
-			// about a potential collision.
-			if (allowCombat || cellIsFriendlyDropoff.test(n)) {
-				return false;
-			}
-			final List<MapCell> adjacent = getNeighbors(n);
-			boolean enemyPredicted = false;
-			for (final MapCell c : adjacent) {
-				if (c.isOccupied() && !c.ship.belongsTo(me)) {
-					final Ship s = c.ship;
-					final double enemyShipVal = s.halite - Math.floor(c.halite * 0.1);
-					final double myShipVal = startCell.ship.halite - moveCost;
-					// If n.hasStructure(), it's guaranteed to be an enemy's
-					// If my ship is worth __% more than the enemy's, don't risk it
-					if (n.hasStructure() || myShipVal * 1.25 > enemyShipVal) {
-						enemyPredicted = true;
-						break;
-					}
-				}
-			}
-			return enemyPredicted;
-		};
+		return getDirection(index(start), index(goal), state, allowCombat);
+	}
 
-		neighborIsAcceptable = neighborIsOpen.or(dropoffIsOccupied).or(enemyShipIsRicher);
-		if (returning || finalRush || (cellIsFriendlyDropoff.test(startCell) && cellIsSurrounded(startCell))
-				|| startCell.halite >= 10 || (startCell.halite == 0 && !cellIsFriendlyDropoff.test(startCell))) {
-			// Allow swapping
-			neighborIsAcceptable = neighborIsAcceptable.or(neighborHasFriendlyShip);
-		}
-		neighborIsAcceptable = enemyPredictedHere.negate().and(neighborIsAcceptable);
+	/**
+	 * Same as {@link #getDirection(Position, Position, ShipState, boolean)}, for cell
+	 * indices.
+	 * 
+	 * @param start       - The index of the beginning cell.
+	 * @param goal        - The index of the target cell.
+	 * @param state       - The ship's current state.
+	 * @param allowCombat - Whether or not "combat" is allowed.
+	 * @return A {@link Direction} that will move a ship closer to its target
+	 */
+	public Direction getDirection(final int start, final int goal, final ShipState state,
+			final boolean allowCombat) {
+		final MapCell startCell = cellAt[start];
+		final int moveCost = (int) Math.floor(halite[startCell.index] * 0.10);
+		final int dist = distance(start, goal);
+		final boolean returning = state == ShipState.RETURNING;
+		final boolean finalRush = state == ShipState.FINAL_RUSH;
 
-		// If there aren't any acceptable neighbors (as defined by the predicate above).
-		if (neighbors.stream().noneMatch(neighborIsAcceptable)) {
-			return STILL;
-		}
+		// Swapping places with a friendly ship is only allowed in some cases.
+		final boolean allowSwapping = returning || finalRush
+				|| (isFriendlyDropoff(startCell) && cellIsSurrounded(startCell)) || halite[startCell.index] >= 10
+				|| (halite[startCell.index] == 0 && !isFriendlyDropoff(startCell));
 
-		List<MapCell> closerNeighbors = new ArrayList<>();
-		List<MapCell> acceptableNeighbors = new ArrayList<>();
-		Comparator<MapCell> comp = comparing(n -> n.halite / (1 + calculateDistance(n.position, goal)));
-		for (final MapCell n : neighbors) {
-			if (!neighborIsAcceptable.test(n)) {
+		// Pick the best acceptable neighbor that gets closer to the goal, or failing
+		// that the best one that is worth moving to. Returning ships want the least
+		// halite in the way, others the most; the first neighbor wins ties.
+		final boolean leastHalite = returning || finalRush;
+		MapCell closer = null;
+		int closerValue = 0;
+		MapCell acceptable = null;
+		int acceptableValue = 0;
+		for (final Direction d : CARDINALS) {
+			final MapCell n = cellAt[neighbor[d.ordinal()][start]];
+			if (!isAcceptableNeighbor(n, startCell, moveCost, returning || finalRush, allowCombat, allowSwapping)) {
 				continue;
 			}
 
-			final int distanceToGoal = calculateDistance(n.position, goal);
+			final int distanceToGoal = distance(n.index, goal);
+			final int value = halite[n.index] / (1 + distanceToGoal);
 			if (distanceToGoal < dist) {
-				closerNeighbors.add(n);
-			} else if (returning || finalRush || n.halite >= (startCell.halite * 1.5)) {
-				acceptableNeighbors.add(n);
+				if (closer == null || (leastHalite ? value < closerValue : value > closerValue)) {
+					closer = n;
+					closerValue = value;
+				}
+			} else if (returning || finalRush || halite[n.index] >= (halite[startCell.index] * 1.5)) {
+				if (acceptable == null || (leastHalite ? value < acceptableValue : value > acceptableValue)) {
+					acceptable = n;
+					acceptableValue = value;
+				}
 			}
 		}
-		if (!closerNeighbors.isEmpty()) {
-			target = (returning || finalRush) ? closerNeighbors.stream().min(comp).get()
-					: closerNeighbors.stream().max(comp).get();
-		} else {
-			target = (returning || finalRush) ? acceptableNeighbors.stream().min(comp).orElse(startCell)
-					: acceptableNeighbors.stream().max(comp).orElse(startCell);
+		final MapCell target = closer != null ? closer : acceptable != null ? acceptable : startCell;
+
+		return directionTo(start, target.index);
+	}
+
+	/**
+	 * Determines whether the neighbor is an acceptable target to travel to.
+	 * 
+	 * @param n             - The neighbor.
+	 * @param startCell     - The cell of the moving ship.
+	 * @param moveCost      - The cost of moving off the start cell.
+	 * @param returning     - Whether the ship is heading home.
+	 * @param allowCombat   - Whether or not "combat" is allowed.
+	 * @param allowSwapping - Whether the ship may swap places with a friendly one.
+	 * @return - True if the ship may move to the neighbor.
+	 */
+	private boolean isAcceptableNeighbor(final MapCell n, final MapCell startCell, final int moveCost,
+			final boolean returning, final boolean allowCombat, final boolean allowSwapping) {
+		if (isEnemyPredicted(n, startCell, moveCost, allowCombat)) {
+			return false;
+		}
+		// The neighbor is open.
+		if (!n.isOccupied()) {
+			return true;
+		}
+		final boolean friendlyShip = n.ship.belongsTo(me);
+		// An enemy is sitting on my dropoff.
+		if (!friendlyShip && isFriendlyDropoff(n)) {
+			return true;
+		}
+		// The enemy ship is worth ramming.
+		if (!friendlyShip && allowCombat && (returning
+				|| n.ship.halite + halite[n.index] > (startCell.ship.halite + halite[startCell.index]) * rammingRatio)) {
+			return true;
+		}
+		return friendlyShip && allowSwapping;
+	}
+
+	/**
+	 * @param n           - The neighbor.
+	 * @param startCell   - The cell of the moving ship.
+	 * @param moveCost    - The cost of moving off the start cell.
+	 * @param allowCombat - Whether or not "combat" is allowed.
+	 * @return - True if an enemy ship might move into the neighbor too.
+	 */
+	private boolean isEnemyPredicted(final MapCell n, final MapCell startCell, final int moveCost,
+			final boolean allowCombat) {
+		// If the neighbor is a friendly dropoff (or if combat is allowed), don't worry
+		// about a potential collision.
+		if (allowCombat || isFriendlyDropoff(n)) {
+			return false;
+		}
+		for (final int[] adjacent : neighbor) {
+			final MapCell c = cellAt[adjacent[n.index]];
+			if (c.isOccupied() && !c.ship.belongsTo(me)) {
+				final Ship s = c.ship;
+				final double enemyShipVal = s.halite - Math.floor(halite[c.index] * 0.1);
+				final double myShipVal = startCell.ship.halite - moveCost;
+				// If n.hasStructure(), it's guaranteed to be an enemy's
+				// If my ship is worth __% more than the enemy's, don't risk it
+				if (n.hasStructure() || myShipVal * 1.25 > enemyShipVal) {
+					return true;
+				}
+			}
 		}
+		return false;
+	}
 
-		return getDirectionToNeighbor(startCell, target);
+	private boolean isFriendlyDropoff(final MapCell cell) {
+		return cell.hasStructure() && cell.structure.belongsTo(me);
 	}
 
 	/**
 	 * Resolves attempted ship movement. Will attempt to move ships to their desired
 	 * destination unless there is no viable path forward.
 	 * 
-	 * NOTE: A warning will be logged and this method will return if the resolution
-	 * takes too long.
+	 * Ships are resolved richest first. A ship whose target holds a friendly ship
+	 * that still wants to move waits on that ship: the ship it waits on is resolved
+	 * first (recursively, following the chain), so every ship is only resolved
+	 * once. Two ships moving into each other's cells swap, and longer cycles of
+	 * ships each moving into the next one's cell rotate together.
+	 * 
+	 * NOTE: If the turn runs out of time, a warning will be logged and every ship
+	 * that hasn't been resolved yet will stay still.
 	 * 
 	 * @param shipPaths  - The map of ships to their desired destination.
-	 * @param shipStatus - The map of ships to their current status (e.g.
-	 *                   "returning", "exploring", etc.)
-	 * @param startTime  - The timestamp (see {@link System#nanoTime()}) calculated
-	 *                   at the beginning of the current turn.
-	 * @return A list of {@link Command}s to be passed to the game engine to resolve
-	 *         movement.
-	 */
-	public List<Command> navigate(Map<Ship, Direction> shipPaths, final Map<EntityId, String> shipStatus,
-			final long startTime) {
-		List<Command> ret = new ArrayList<>();
-		Comparator<Entry<Ship, Direction>> comp = comparing(e -> e.getKey().halite);
-		boolean movementMade = true;
-		while (movementMade) {
-			movementMade = false;
-			// If we're getting close to running out of time for the turn, break out.
-			if (!this.debug && (System.nanoTime() - startTime) / 1_000_000.0 >= 1_900) {
-				Log.log("*** WARNING: Breaking from Navigate! ***");
-				break;
+	 * @param shipStates - The current state of my ships.
+	 * @param budget     - The time budget of the current turn.
+	 * @param ret        - The list the {@link Command}s to be passed to the game
+	 *                   engine to resolve movement are added to.
+	 */
+	public void navigate(Map<Ship, Direction> shipPaths, final ShipStates shipStates, final TurnBudget budget,
+			final List<Command> ret) {
+		navigationOrder.clear();
+		for (final Ship ship : shipPaths.keySet()) {
+			navigationOrder.add(ship);
+		}
+		navigationSort.sort(navigationOrder, RICHEST_FIRST);
+		waiting.clear();
+		int unresolved = 0;
+		for (int i = 0; i < navigationOrder.size(); i++) {
+			final Ship ship = navigationOrder.get(i);
+			// If we've run out of time for the turn, keep the remaining ships still.
+			if (budget.turnExpired()) {
+				if (!ship.hasMoved()) {
+					ret.add(ship.stayStill());
+					unresolved++;
+				}
+				continue;
 			}
+			resolveMove(ship, shipPaths, shipStates, waiting, ret);
+		}
+		if (unresolved > 0) {
+			Log.log(Log.Level.WARN, Log.Category.NAVIGATION,
+					"*** WARNING: Out of time in Navigate! %d ships left still. ***", unresolved);
+		}
+	}
 
-			final List<Entry<Ship, Direction>> ships_sorted_by_halite = shipPaths.entrySet().stream()
-					.sorted(comp.reversed()).collect(Collectors.toList());
-			for (Entry<Ship, Direction> e : ships_sorted_by_halite) {
-				final Ship ship = e.getKey();
-				if (ship.hasMoved()) {
-					continue;
-				} else if (!canShipMove(ship)) {
-					ret.add(ship.stayStill());
-					movementMade = true;
-					continue;
+	/**
+	 * Resolves the move of a single ship (and of any ships it has to wait on).
+	 * 
+	 * @param ship       - The ship to resolve.
+	 * @param shipPaths  - The map of ships to their desired destination.
+	 * @param shipStates - The current state of my ships.
+	 * @param waiting    - The chain of ships currently waiting on the next one.
+	 * @param ret        - The list the resulting commands are added to.
+	 */
+	private void resolveMove(final Ship ship, final Map<Ship, Direction> shipPaths,
+			final ShipStates shipStates, final List<Ship> waiting, final List<Command> ret) {
+		final int shipIndex = index(ship.position);
+		while (!ship.hasMoved()) {
+			if (!canShipMove(ship, shipIndex)) {
+				ret.add(ship.stayStill());
+				return;
+			}
+
+			final Direction dir = shipPaths.get(ship);
+			final MapCell targetCell = cellAt[neighbor(shipIndex, dir)];
+			final boolean targetIsDropoff = targetCell.hasStructure() && targetCell.structure.belongsTo(me);
+
+			// If the ship wants to stay still
+			if (dir.equals(STILL)) {
+				ret.add(ship.stayStill());
+				return;
+			}
+
+			// If the ship is rushing back home.
+			if (targetIsDropoff && shipStates.is(ship, ShipState.FINAL_RUSH)) {
+				cellAt[shipIndex].markSafe();
+				ret.add(ship.move(dir));
+				return;
+			}
+
+			// If the target doesn't have a friendly ship on it
+			if (!targetCell.isOccupied() || !targetCell.ship.belongsTo(me)) {
+				targetCell.markUnsafe(ship);
+				cellAt[shipIndex].markSafe();
+				ret.add(ship.move(dir));
+				return;
+			}
+
+			final Ship otherShip = targetCell.ship;
+			final Direction otherDir = shipPaths.get(otherShip);
+			// If the other ship has already been resolved, can't move or isn't going
+			// anywhere, stay put.
+			if (otherDir == null || otherShip.hasMoved() || !canShipMove(otherShip) || otherDir.equals(STILL)) {
+				ret.add(ship.stayStill());
+				return;
+			}
+
+			// If the other ship wants to move into my space, swap places
+			if (otherDir.equals(dir.invertDirection())) {
+				targetCell.markUnsafe(ship);
+				cellAt[shipIndex].markUnsafe(otherShip);
+				ret.add(ship.move(dir));
+				ret.add(otherShip.move(otherDir));
+				return;
+			}
+
+			// If the other ship is already waiting (directly or indirectly) on this
+			// one, every ship in the chain moves into the next one's cell at once.
+			final int cycleStart = waiting.indexOf(otherShip);
+			if (cycleStart >= 0) {
+				for (int w = cycleStart; w <= waiting.size(); w++) {
+					final Ship s = w < waiting.size() ? waiting.get(w) : ship;
+					final Direction d = shipPaths.get(s);
+					cellAt[neighbor(index(s.position), d)].markUnsafe(s);
+					ret.add(s.move(d));
 				}
+				return;
+			}
 
-				final Direction dir = e.getValue();
-				final Position target = ship.position.directionalOffset(dir);
-				final MapCell targetCell = at(target);
-				final boolean targetIsDropoff = targetCell.hasStructure() && targetCell.structure.belongsTo(me);
+			// Otherwise, resolve the other ship first, then try again.
+			waiting.add(ship);
+			resolveMove(otherShip, shipPaths, shipStates, waiting, ret);
+			waiting.remove(waiting.size() - 1);
+		}
+	}
 
-				// If the ship wants to stay still
-				if (dir.equals(STILL)) {
-					ret.add(ship.stayStill());
-					movementMade = true;
-					continue;
+	/**
+	 * Recomputes the distance from every cell to my nearest shipyard/dropoff if
+	 * the set of dropoffs has changed. On ties the shipyard is preferred, followed
+	 * by the dropoffs in the order they are listed.
+	 */
+	void updateDropoffField() {
+		final int count = 1 + me.dropoffs.size();
+		if (dropoffSources.length < count) {
+			dropoffSources = Arrays.copyOf(dropoffSources, count);
+		}
+		dropoffSources[0] = index(me.shipyard.position);
+		int i = 1;
+		for (final Dropoff dropoff : me.dropoffs.values()) {
+			dropoffSources[i++] = index(dropoff.position);
+		}
+		dropoffField.update(dropoffSources, count);
+	}
+
+	/**
+	 * Registers a new shipyard or dropoff.
+	 * 
+	 * @param structure
+	 */
+	void addStructure(final Entity structure) {
+		at(structure).structure = structure;
+		if (structures.size() == structureSources.length) {
+			structureSources = Arrays.copyOf(structureSources, 2 * structureSources.length);
+		}
+		structureSources[structures.size()] = index(structure.position);
+		structures.add(structure);
+	}
+
+	/**
+	 * Recomputes {@link #distToNearestStructure} if a structure has been added
+	 * since the last call.
+	 */
+	void updateStructureField() {
+		structureField.update(structureSources, structures.size());
+	}
+
+	/**
+	 * @param cell     - The cell index.
+	 * @param distance
+	 * @return - True if any player's shipyard or dropoff is within the given
+	 *         distance of the cell.
+	 */
+	public boolean isStructureWithin(final int cell, final double distance) {
+		return distToNearestStructure[cell] <= distance;
+	}
+
+	/**
+	 * Blends planned future dropoffs into {@link #distToBase}. Starting from the
+	 * distance to the nearest real dropoff, each future dropoff (in list
+	 * order) that is closer averages the current distance with its own. The blend
+	 * is only recomputed when the real or the future dropoffs change.
+	 * 
+	 * @param futureDropoffs - The positions of the planned dropoffs.
+	 * @return - {@link #distToBase}
+	 */
+	public int[] blendFutureDropoffs(final List<Position> futureDropoffs) {
+		boolean changed = blendedVersion != dropoffField.version() || blendedDropoffs.length != futureDropoffs.size();
+		if (!changed) {
+			for (int i = 0; i < blendedDropoffs.length; i++) {
+				if (blendedDropoffs[i] != index(futureDropoffs.get(i))) {
+					changed = true;
+					break;
 				}
+			}
+		}
+		if (!changed) {
+			return distToBase;
+		}
 
-				// If the ship is rushing back home.
-				if (targetIsDropoff && shipStatus.get(ship.id).equals("finalRush")) {
-					at(ship).markSafe();
-					ret.add(ship.move(dir));
-					movementMade = true;
-					continue;
+		blendedVersion = dropoffField.version();
+		blendedDropoffs = new int[futureDropoffs.size()];
+		for (int k = 0; k < blendedDropoffs.length; k++) {
+			blendedDropoffs[k] = index(futureDropoffs.get(k));
+		}
+		for (int i = 0; i < distToBase.length; ++i) {
+			int dist = distToNearestDropoff[i];
+			for (final int futureDropoff : blendedDropoffs) {
+				final int distance = distance(i, futureDropoff);
+				if (distance < dist) {
+					dist = (dist + distance) / 2;
 				}
+			}
+			distToBase[i] = dist;
+		}
+		return distToBase;
+	}
 
-				// If the target has a friendly ship on it
-				if (targetCell.isOccupied() && targetCell.ship.belongsTo(me)) {
-					final Ship otherShip = targetCell.ship;
-					if (!shipPaths.containsKey(otherShip)) {
-						continue;
-					}
-					// If the other ship can still move
-					if (!otherShip.hasMoved() && canShipMove(otherShip)) {
-						Direction otherDir = shipPaths.get(otherShip);
-						// If the other ship wants to move into my space, swap places
-						if (otherDir != null && !otherDir.equals(STILL) && otherDir.equals(dir.invertDirection())) {
-							targetCell.markUnsafe(ship);
-							at(ship).markUnsafe(otherShip);
-							ret.add(ship.move(dir));
-							ret.add(otherShip.move(otherDir));
-							movementMade = true;
-							// If the other ship is staying still
-						} else if (otherDir != null && otherDir.equals(STILL)) {
-							ret.add(ship.stayStill());
-							movementMade = true;
-						}
-						// Otherwise, wait for it to move?
-					} else {
-						ret.add(ship.stayStill());
-						movementMade = true;
-					}
-				} else {
-					targetCell.markUnsafe(ship);
-					at(ship).markSafe();
-					ret.add(ship.move(dir));
-					movementMade = true;
+	/**
+	 * Starts maintaining ship occupancy counts for the given radius. Should be
+	 * called during the pre-game, before the first turn is read.
+	 * 
+	 * @param radius
+	 */
+	public void trackOccupancy(final int radius) {
+		if (radius < occupancy.length && occupancy[radius] != null) {
+			return;
+		}
+		if (radius >= occupancy.length) {
+			occupancy = Arrays.copyOf(occupancy, radius + 1);
+			occupancyTotal = Arrays.copyOf(occupancyTotal, radius + 1);
+			occupancyOffsets = Arrays.copyOf(occupancyOffsets, radius + 1);
+		}
+		occupancy[radius] = new short[0][];
+		occupancyTotal[radius] = new short[size()];
+		occupancyOffsets[radius] = DiamondSum.offsets(radius);
+	}
+
+	/**
+	 * @param cell   - The index of the cell.
+	 * @param radius - A radius registered through {@link #trackOccupancy(int)}.
+	 * @return - The number of friendly ships within the radius of the cell.
+	 */
+	public int alliesWithin(final int cell, final int radius) {
+		return occupancy[radius][me.id.id][cell];
+	}
+
+	/**
+	 * @param cell   - The index of the cell.
+	 * @param radius - A radius registered through {@link #trackOccupancy(int)}.
+	 * @return - The number of enemy ships within the radius of the cell.
+	 */
+	public int enemiesWithin(final int cell, final int radius) {
+		return occupancyTotal[radius][cell] - occupancy[radius][me.id.id][cell];
+	}
+
+	/**
+	 * Updates the occupancy counts of every tracked radius by stamping the diamond
+	 * around every ship. Last turn's stamps are removed first, so the cost scales
+	 * with the number of ships rather than the size of the map.
+	 * 
+	 * @param players
+	 */
+	void stampOccupancy(final List<Player> players) {
+		for (int r = 0; r < occupancy.length; ++r) {
+			if (occupancy[r] != null && occupancy[r].length < players.size()) {
+				occupancy[r] = new short[players.size()][size()];
+			}
+		}
+
+		for (int i = 0; i < stampedCount; ++i) {
+			stamp(stampedCells[i], stampedOwners[i], -1);
+		}
+		stampedCount = 0;
+		for (final Player player : players) {
+			for (final Ship ship : player.ships.values()) {
+				if (stampedCount == stampedCells.length) {
+					stampedCells = Arrays.copyOf(stampedCells, Math.max(16, stampedCount * 2));
+					stampedOwners = Arrays.copyOf(stampedOwners, stampedCells.length);
 				}
+				final int cell = index(ship.position);
+				stampedCells[stampedCount] = cell;
+				stampedOwners[stampedCount] = player.id.id;
+				stampedCount++;
+				stamp(cell, player.id.id, 1);
 			}
 		}
+	}
 
-		return ret;
+	private void stamp(final int cell, final int owner, final int amount) {
+		final int x = cellX[cell];
+		final int y = cellY[cell];
+		for (int r = 0; r < occupancy.length; ++r) {
+			if (occupancy[r] == null) {
+				continue;
+			}
+			final short[] counts = occupancy[r][owner];
+			final short[] total = occupancyTotal[r];
+			final int[] offsetX = occupancyOffsets[r][0];
+			final int[] offsetY = occupancyOffsets[r][1];
+			for (int i = 0; i < offsetX.length; ++i) {
+				final int j = normalize(x + offsetX[i], y + offsetY[i]);
+				counts[j] += amount;
+				total[j] += amount;
+			}
+		}
+	}
+
+	/**
+	 * Applies a change in the halite of a single cell, keeping the surrounding
+	 * halite of every cell within {@link #surroundingRadius} and the total free
+	 * halite up to date.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param newHalite - The cell's new amount of halite.
+	 */
+	private void applyHaliteDelta(final int x, final int y, final int newHalite) {
+		final int index = index(x, y);
+		final int delta = newHalite - halite[index];
+		if (delta == 0) {
+			return;
+		}
+		halite[index] = newHalite;
+		currentFreeHalite += delta;
+
+		final int area = surroundingOffsetX.length;
+		for (int i = 0; i < area; ++i) {
+			final int j = normalize(x + surroundingOffsetX[i], y + surroundingOffsetY[i]);
+			surroundingHalite[j] += delta;
+			surroundingHaliteDensity[j] = (int) surroundingHalite[j] / area;
+		}
 	}
 
-	void _update() {
-		this.currentFreeHalite = 0;
-		final int updateCount = Input.readInput().getInt();
+	/**
+	 * Recomputes the surrounding halite (and its density) of every cell from
+	 * scratch.
+	 */
+	private void computeSurroundingHalite() {
+		diamondSum.sum(halite, surroundingRadius, surroundingHalite);
+		final int area = DiamondSum.area(surroundingRadius);
+		for (int i = 0; i < surroundingHalite.length; ++i) {
+			surroundingHaliteDensity[i] = (int) surroundingHalite[i] / area;
+		}
+	}
+
+	void _update(final Input input) {
+		final int updateCount = input.getInt();
 
 		for (int i = 0; i < updateCount; ++i) {
-			final Input input = Input.readInput();
 			final int x = input.getInt();
 			final int y = input.getInt();
 
-			final int halite = input.getInt();
-			cells[y][x].halite = halite;
+			applyHaliteDelta(x, y, input.getInt());
 		}
 
-		for (int y = 0; y < height; ++y) {
-			for (int x = 0; x < width; ++x) {
-				cells[y][x].ship = null;
-				this.currentFreeHalite += cells[y][x].halite;
+		for (int i = 0; i < cellAt.length; ++i) {
+			cellAt[i].ship = null;
+		}
+
+		if (debug) {
+			// Make sure the incremental sums haven't drifted.
+			final int[] expected = new int[size()];
+			diamondSum.sum(halite, surroundingRadius, expected);
+			for (int i = 0; i < expected.length; ++i) {
+				if (expected[i] != surroundingHalite[i]) {
+					throw new IllegalStateException(String.format("Surrounding halite drifted at %s: %f != %d",
+							cellAt[i], surroundingHalite[i], expected[i]));
+				}
 			}
 		}
 	}
 
-	static GameMap _generate(final Player me, final boolean debug) {
-		final Input mapInput = Input.readInput();
-		final int width = mapInput.getInt();
-		final int height = mapInput.getInt();
+	static GameMap _generate(final Input input, final Player me, final boolean debug) {
+		final int width = input.getInt();
+		final int height = input.getInt();
 
 		final GameMap map = new GameMap(width, height, me);
 		map.debug = debug;
 
 		for (int y = 0; y < height; ++y) {
-			final Input rowInput = Input.readInput();
-
 			for (int x = 0; x < width; ++x) {
-				final int halite = rowInput.getInt();
+				final int halite = input.getInt();
 				map.initialHalite += halite;
-				final MapCell cell = new MapCell(new Position(x, y), halite);
+				final int index = map.index(x, y);
+				final MapCell cell = new MapCell(map, index, new Position(x, y));
 				map.cells[y][x] = cell;
+				map.cellAt[index] = cell;
+				map.halite[index] = halite;
+				map.mineableHaliteThisTurn[index] = (halite + 3) / 4;
 			}
 		}
 		map.currentFreeHalite = map.initialHalite;
+		map.computeSurroundingHalite();
 		map.cellsList = map.asList();
 
 		return map;
@@ -1,42 +1,189 @@
 package halite.hlt;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the engine's protocol from a stream through a reusable buffer.
+ *
+ * The protocol is made of whitespace-separated integers (apart from the
+ * constants line), so integers are parsed straight from the buffered bytes,
+ * without building a string per line or per token. Line breaks are treated
+ * like any other whitespace: the callers know how many integers to expect.
+ *
+ * When reading from the engine, the bot exits as soon as the engine closes the
+ * connection. Other readers (e.g. the simulator) get an exception instead.
+ */
 public class Input {
-	private final String[] input;
-	private int current;
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private final InputStream in;
+	private final boolean exitOnClose;
+	private final byte[] buffer = new byte[BUFFER_SIZE];
+	private int position;
+	private int limit;
+	/** Where everything read is copied to, if recording. */
+	private OutputStream transcript;
 
-	public Input(final String line) {
-		input = line.split(" ");
+	public Input(final InputStream in) {
+		this(in, true);
 	}
 
+	/**
+	 * @param in
+	 * @param exitOnClose - Whether to exit the process when the input is closed in
+	 *                    the middle of a message (rather than throw an
+	 *                    {@link IllegalStateException}).
+	 */
+	public Input(final InputStream in, final boolean exitOnClose) {
+		this.in = in;
+		this.exitOnClose = exitOnClose;
+	}
+
+	/**
+	 * Copies everything read from now on to the given stream, which is closed
+	 * once the input ends. Call it before reading anything, so that the
+	 * transcript starts with the engine's first message.
+	 *
+	 * @param transcript
+	 */
+	public void record(final OutputStream transcript) {
+		this.transcript = transcript;
+	}
+
+	/**
+	 * Skips any whitespace, waiting for more input if needed.
+	 *
+	 * @return - False if the input has been closed (e.g. between two turns, once
+	 *         the game is over).
+	 */
+	public boolean hasNext() {
+		for (;;) {
+			while (position < limit) {
+				final byte c = buffer[position];
+				if (c != ' ' && c != '\n' && c != '\r') {
+					return true;
+				}
+				position++;
+			}
+			if (!fill(false)) {
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * @return - The next integer of the input.
+	 */
 	public int getInt() {
-		return Integer.parseInt(input[current++]);
+		int c = read();
+		while (c == ' ' || c == '\n' || c == '\r') {
+			c = read();
+		}
+		final boolean negative = c == '-';
+		if (negative) {
+			c = read();
+		}
+		if (c < '0' || c > '9') {
+			throw new IllegalStateException("Expected an integer from the engine, got '" + (char) c + "'");
+		}
+		int value = 0;
+		for (; c >= '0' && c <= '9'; c = read()) {
+			value = value * 10 + (c - '0');
+		}
+		// Put back the byte that ended the integer, in case it is the end of input.
+		position--;
+		return negative ? -value : value;
+	}
+
+	/**
+	 * @return - The rest of the current line (without the line break).
+	 */
+	public String readLine() {
+		final int start = position;
+		for (int i = position; i < limit; i++) {
+			if (buffer[i] == '\n') {
+				position = i + 1;
+				return line(buffer, start, i);
+			}
+		}
+		// The line goes past the end of the buffer, so copy it as it is read.
+		final ByteArrayOutputStream builder = new ByteArrayOutputStream();
+		for (int c = read(); c != '\n'; c = read()) {
+			builder.write(c);
+		}
+		final byte[] bytes = builder.toByteArray();
+		return line(bytes, 0, bytes.length);
 	}
 
-	public static Input readInput() {
-		return new Input(readLine());
+	private static String line(final byte[] bytes, final int start, int end) {
+		// Ignore carriage return if on windows for manual testing.
+		if (end > start && bytes[end - 1] == '\r') {
+			end--;
+		}
+		return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
 	}
 
-	public static String readLine() {
-		try {
-			final StringBuilder builder = new StringBuilder();
+	private int read() {
+		if (position == limit) {
+			fill(true);
+		}
+		return buffer[position++];
+	}
 
-			int buffer;
-			for (; (buffer = System.in.read()) >= 0;) {
-				if (buffer == '\n') {
-					break;
+	/**
+	 * Reads the next chunk of input into the buffer.
+	 *
+	 * @param required - Whether the input may not end here.
+	 * @return - False if the input has ended (and it wasn't required).
+	 */
+	private boolean fill(final boolean required) {
+		try {
+			int read;
+			do {
+				read = in.read(buffer, 0, buffer.length);
+			} while (read == 0);
+			if (read < 0) {
+				stopRecording();
+				if (!required) {
+					return false;
 				}
-				if (buffer == '\r') {
-					// Ignore carriage return if on windows for manual testing.
-					continue;
+				throw new IOException("End of input");
+			}
+			position = 0;
+			limit = read;
+			if (transcript != null) {
+				try {
+					transcript.write(buffer, 0, read);
+					transcript.flush();
+				} catch (final IOException e) {
+					Log.log(Log.Level.WARN, Log.Category.GAME, "Stopped recording: %s", e);
+					transcript = null;
 				}
-				builder.append((char)buffer);
 			}
-
-			return builder.toString();
-		} catch (final Exception e) {
-			Log.log("Input connection from server closed. Exiting...");
-			System.exit(0);
+			return true;
+		} catch (final IOException e) {
+			stopRecording();
+			if (exitOnClose) {
+				Log.log("Input connection from server closed. Exiting...");
+				System.exit(0);
+			}
 			throw new IllegalStateException(e);
 		}
 	}
+
+	private void stopRecording() {
+		if (transcript == null) {
+			return;
+		}
+		try {
+			transcript.close();
+		} catch (final IOException e) {
+			Log.log(Log.Level.WARN, Log.Category.GAME, "Could not finish the transcript: %s", e);
+		}
+		transcript = null;
+	}
 }
@@ -3,12 +3,41 @@ package halite.hlt;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Supplier;
 
+/**
+ * The bot's log file.
+ *
+ * Messages can be given a {@link Level} and a {@link Category}; those that are
+ * filtered out cost a single branch. The overloads taking primitives or a
+ * {@link Supplier} only box or build their arguments once the message is known
+ * to be enabled, so they are safe to use in hot loops. Messages logged without
+ * a level are always written.
+ */
 public class Log {
+	public enum Level {
+		ERROR, WARN, INFO, DEBUG
+	}
+
+	public enum Category {
+		GAME, TIMING, DROPOFF, SHIP, TARGET, NAVIGATION
+	}
+
 	private final FileWriter file;
 
 	private static Log INSTANCE;
+	private static boolean DISABLED;
+	// What DISABLED is made of: disable() for good, or suspend() until resume().
+	private static boolean STOPPED;
+	private static int SUSPENDED;
 	private static ArrayList<String> LOG_BUFFER = new ArrayList<>();
+	private static Level LEVEL = Level.INFO;
+	private static final boolean[] CATEGORIES = new boolean[Category.values().length];
+
+	static {
+		Arrays.fill(CATEGORIES, true);
+	}
 
 	static {
 		Runtime.getRuntime().addShutdownHook(new AtExit());
@@ -18,6 +47,11 @@ public class Log {
 		@Override
 		public void run() {
 			if (INSTANCE != null) {
+				// Write out whatever is still waiting in the ring buffer.
+				LogWriter.INSTANCE.close();
+				return;
+			}
+			if (DISABLED) {
 				return;
 			}
 
@@ -38,6 +72,9 @@ public class Log {
 	}
 
 	static void open(final int botId) {
+		if (DISABLED) {
+			return;
+		}
 		if (INSTANCE != null) {
 			Log.log("Error: log: tried to open(%d) but we have already opened before.", botId);
 			throw new IllegalStateException();
@@ -62,16 +99,156 @@ public class Log {
 		LOG_BUFFER.clear();
 	}
 
+	/**
+	 * Drops every message from now on. Used by tools that run the bot without
+	 * wanting its log.
+	 */
+	public static synchronized void disable() {
+		STOPPED = true;
+		DISABLED = true;
+		LOG_BUFFER.clear();
+	}
+
+	/**
+	 * Drops every message until the matching {@link #resume()}. Used while several
+	 * bots share the process (and so would share the log). Calls may overlap, e.g.
+	 * for games played at the same time: the log comes back after the last
+	 * resume().
+	 */
+	public static synchronized void suspend() {
+		SUSPENDED++;
+		DISABLED = true;
+		LOG_BUFFER.clear();
+	}
+
+	/**
+	 * Ends a {@link #suspend()}.
+	 */
+	public static synchronized void resume() {
+		if (SUSPENDED == 0) {
+			throw new IllegalStateException("The log was resumed without being suspended");
+		}
+		SUSPENDED--;
+		DISABLED = STOPPED || SUSPENDED > 0;
+	}
+
+	/**
+	 * @param level - The most detailed level to log.
+	 */
+	public static void setLevel(final Level level) {
+		LEVEL = level;
+	}
+
+	/**
+	 * @param level - The name of the most detailed level to log (e.g. "debug").
+	 */
+	public static void setLevel(final String level) {
+		setLevel(Level.valueOf(level.trim().toUpperCase()));
+	}
+
+	/**
+	 * Only logs the given categories.
+	 *
+	 * @param categories - A comma separated list of category names (e.g.
+	 *                   "timing,ship").
+	 */
+	public static void setCategories(final String categories) {
+		Arrays.fill(CATEGORIES, false);
+		for (final String category : categories.split(",")) {
+			CATEGORIES[Category.valueOf(category.trim().toUpperCase()).ordinal()] = true;
+		}
+	}
+
+	/**
+	 * @param category
+	 * @return - True if the category is logged at all.
+	 */
+	public static boolean enabled(final Category category) {
+		return !DISABLED && CATEGORIES[category.ordinal()];
+	}
+
+	/**
+	 * @param level
+	 * @param category
+	 * @return - True if messages of the given level and category are logged.
+	 */
+	public static boolean enabled(final Level level, final Category category) {
+		return !DISABLED && level.compareTo(LEVEL) <= 0 && CATEGORIES[category.ordinal()];
+	}
+
+	public static void log(final Level level, final Category category, final String message, final Object... args) {
+		if (enabled(level, category)) {
+			log(message, args);
+		}
+	}
+
+	public static void log(final Level level, final Category category, final String message, final int arg) {
+		if (!enabled(level, category)) {
+			return;
+		}
+		if (INSTANCE == null) {
+			log(message, arg);
+			return;
+		}
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.TEXT, 0, 0, 0, message, null, arg);
+	}
+
+	public static void log(final Level level, final Category category, final String message, final int arg1,
+			final int arg2) {
+		if (!enabled(level, category)) {
+			return;
+		}
+		if (INSTANCE == null) {
+			log(message, arg1, arg2);
+			return;
+		}
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.TEXT, 0, 0, 0, message, null, arg1, arg2);
+	}
+
+	public static void log(final Level level, final Category category, final String message, final long arg) {
+		if (!enabled(level, category)) {
+			return;
+		}
+		if (INSTANCE == null) {
+			log(message, arg);
+			return;
+		}
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.TEXT, 0, 0, 0, message, null, arg);
+	}
+
+	public static void log(final Level level, final Category category, final String message, final double arg) {
+		if (!enabled(level, category)) {
+			return;
+		}
+		if (INSTANCE == null) {
+			log(message, arg);
+			return;
+		}
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.TEXT, 0, 0, 0, message, null, arg);
+	}
+
+	/**
+	 * Logs a message that is only built if it is enabled.
+	 *
+	 * @param level
+	 * @param category
+	 * @param message
+	 */
+	public static void log(final Level level, final Category category, final Supplier<String> message) {
+		if (enabled(level, category)) {
+			log("%s", message.get());
+		}
+	}
+
 	public static void log(final String message, Object... args) {
+		if (DISABLED) {
+			return;
+		}
 		if (INSTANCE == null) {
 			LOG_BUFFER.add(message);
 			return;
 		}
 
-		try {
-			INSTANCE.file.append(String.format(message, args)).append('\n').flush();
-		} catch (final IOException e) {
-			e.printStackTrace();
-		}
+		LogWriter.INSTANCE.add(INSTANCE.file, LogWriter.TEXT, 0, 0, 0, message, null, args);
 	}
 }
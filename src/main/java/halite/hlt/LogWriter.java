@@ -0,0 +1,315 @@
+package halite.hlt;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Formats and writes log records on a background thread, so that logging only
+ * costs the turn thread a few field stores.
+ *
+ * Records are kept in a preallocated ring buffer. A record holds the id of its
+ * template (templates are numbered the first time they are logged) and, for
+ * messages with up to two int, long or double arguments, the arguments themselves, so
+ * those cost no allocation at all; other arguments are kept as given. The
+ * writer thread takes every pending record at once, formats them and flushes
+ * each file once per batch. If the ring is full, the logging thread waits for
+ * the writer to catch up, so no record is ever lost. Because arguments are
+ * formatted later, they must not be modified after they have been logged.
+ */
+final class LogWriter {
+	/** A message formatted from its template and arguments. */
+	static final int TEXT = 0;
+	/** An f-log message attached to a cell (with an optional color). */
+	static final int CELL = 1;
+	/** An f-log color attached to a cell. */
+	static final int COLOR = 2;
+
+	// The kinds of the primitive arguments.
+	private static final byte NONE = 0;
+	private static final byte INT = 1;
+	private static final byte DOUBLE = 2;
+	private static final byte LONG = 3;
+
+	private static final int CAPACITY = 1 << 14;
+	private static final int MASK = CAPACITY - 1;
+
+	static final LogWriter INSTANCE = new LogWriter();
+
+	// The records, one slot per array.
+	private final Writer[] targets = new Writer[CAPACITY];
+	private final byte[] kinds = new byte[CAPACITY];
+	private final int[] turns = new int[CAPACITY];
+	private final int[] xs = new int[CAPACITY];
+	private final int[] ys = new int[CAPACITY];
+	private final int[] templateIds = new int[CAPACITY];
+	private final String[] colors = new String[CAPACITY];
+	private final Object[][] args = new Object[CAPACITY][];
+	// Two primitive arguments per slot: their kinds, and their bits.
+	private final byte[] argKinds = new byte[2 * CAPACITY];
+	private final long[] argValues = new long[2 * CAPACITY];
+
+	// The templates by id. Only grown while holding the lock, and the writer
+	// thread only reads the ids of records added before it took the array.
+	private final Map<String, Integer> ids = new HashMap<>();
+	private String[] templates = new String[1 << 8];
+
+	// Records [head, tail) are waiting to be written.
+	private long head;
+	private long tail;
+	private boolean closed;
+	private Thread thread;
+
+	private final StringBuilder builder = new StringBuilder();
+	private final Map<Writer, Boolean> touched = new IdentityHashMap<>();
+
+	private LogWriter() {
+	}
+
+	/**
+	 * Adds a record to the ring, starting the writer thread if needed.
+	 *
+	 * @param target   - The file to write to.
+	 * @param kind     - {@link #TEXT}, {@link #CELL} or {@link #COLOR}.
+	 * @param turn
+	 * @param x
+	 * @param y
+	 * @param template - The format string of the message.
+	 * @param color    - The color of the cell, or "" for none.
+	 * @param args     - The arguments of the format string, or null to write the
+	 *                 template as it is.
+	 */
+	synchronized void add(final Writer target, final int kind, final int turn, final int x, final int y,
+			final String template, final String color, final Object[] args) {
+		final int slot = claim(target, kind, turn, x, y, template, color);
+		this.args[slot] = args;
+		publish();
+	}
+
+	synchronized void add(final Writer target, final int kind, final int turn, final int x, final int y,
+			final String template, final String color, final int arg) {
+		final int slot = claim(target, kind, turn, x, y, template, color);
+		argKinds[2 * slot] = INT;
+		argValues[2 * slot] = arg;
+		publish();
+	}
+
+	synchronized void add(final Writer target, final int kind, final int turn, final int x, final int y,
+			final String template, final String color, final int arg1, final int arg2) {
+		final int slot = claim(target, kind, turn, x, y, template, color);
+		argKinds[2 * slot] = INT;
+		argValues[2 * slot] = arg1;
+		argKinds[2 * slot + 1] = INT;
+		argValues[2 * slot + 1] = arg2;
+		publish();
+	}
+
+	synchronized void add(final Writer target, final int kind, final int turn, final int x, final int y,
+			final String template, final String color, final long arg) {
+		final int slot = claim(target, kind, turn, x, y, template, color);
+		argKinds[2 * slot] = LONG;
+		argValues[2 * slot] = arg;
+		publish();
+	}
+
+	synchronized void add(final Writer target, final int kind, final int turn, final int x, final int y,
+			final String template, final String color, final double arg) {
+		final int slot = claim(target, kind, turn, x, y, template, color);
+		argKinds[2 * slot] = DOUBLE;
+		argValues[2 * slot] = Double.doubleToRawLongBits(arg);
+		publish();
+	}
+
+	/**
+	 * Waits for a free slot and fills in everything but the arguments. Must be
+	 * followed by {@link #publish()}.
+	 *
+	 * @return - The slot.
+	 */
+	private int claim(final Writer target, final int kind, final int turn, final int x, final int y,
+			final String template, final String color) {
+		while (tail - head == CAPACITY) {
+			waitUninterruptibly();
+		}
+		if (thread == null) {
+			thread = new Thread(this::run, "log-writer");
+			thread.setDaemon(true);
+			thread.start();
+		}
+		final int slot = (int) (tail & MASK);
+		targets[slot] = target;
+		kinds[slot] = (byte) kind;
+		turns[slot] = turn;
+		xs[slot] = x;
+		ys[slot] = y;
+		templateIds[slot] = template == null ? -1 : templateId(template);
+		colors[slot] = color;
+		argKinds[2 * slot] = NONE;
+		argKinds[2 * slot + 1] = NONE;
+		return slot;
+	}
+
+	private void publish() {
+		if (tail++ == head) {
+			notifyAll();
+		}
+	}
+
+	/**
+	 * @param template
+	 * @return - The id of the template, numbering it if it is new.
+	 */
+	private int templateId(final String template) {
+		final Integer id = ids.get(template);
+		if (id != null) {
+			return id;
+		}
+		final int next = ids.size();
+		if (next == templates.length) {
+			templates = Arrays.copyOf(templates, 2 * next);
+		}
+		templates[next] = template;
+		ids.put(template, next);
+		return next;
+	}
+
+	/**
+	 * Waits until every record added so far has been written, then stops the
+	 * writer thread. Records added afterwards start a new one.
+	 */
+	void close() {
+		final Thread writer;
+		synchronized (this) {
+			closed = true;
+			notifyAll();
+			writer = thread;
+		}
+		if (writer != null) {
+			try {
+				writer.join();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private void run() {
+		for (;;) {
+			final long start;
+			final long end;
+			final String[] names;
+			synchronized (this) {
+				while (head == tail && !closed) {
+					waitUninterruptibly();
+				}
+				if (head == tail) {
+					closed = false;
+					thread = null;
+					return;
+				}
+				start = head;
+				end = tail;
+				names = templates;
+			}
+
+			// The slots can't be reused until head moves past them.
+			for (long i = start; i < end; i++) {
+				write((int) (i & MASK), names);
+			}
+			for (final Writer target : touched.keySet()) {
+				try {
+					target.flush();
+				} catch (final IOException e) {
+					e.printStackTrace();
+				}
+			}
+			touched.clear();
+
+			synchronized (this) {
+				head = end;
+				notifyAll();
+			}
+		}
+	}
+
+	private void write(final int slot, final String[] names) {
+		final String template = templateIds[slot] < 0 ? null : names[templateIds[slot]];
+		builder.setLength(0);
+		try {
+			final Object[] arguments = arguments(slot);
+			final String message = arguments == null ? template : String.format(template, arguments);
+			switch (kinds[slot]) {
+			case CELL:
+				builder.append("{\"t\": ").append(turns[slot]).append(", \"x\": ").append(xs[slot])
+						.append(", \"y\": ").append(ys[slot]).append(", \"msg\": \"").append(message).append('"');
+				if (!colors[slot].equals("")) {
+					builder.append(", \"color\": \"").append(colors[slot]).append('"');
+				}
+				builder.append("},");
+				break;
+			case COLOR:
+				builder.append("{\"t\": ").append(turns[slot]).append(", \"x\": ").append(xs[slot])
+						.append(", \"y\": ").append(ys[slot]).append(", \"color\": \"").append(colors[slot])
+						.append("\"},");
+				break;
+			default:
+				builder.append(message);
+				break;
+			}
+		} catch (final RuntimeException e) {
+			builder.setLength(0);
+			builder.append("Error: log: could not format \"").append(template).append("\": ").append(e);
+		}
+		builder.append('\n');
+
+		final Writer target = targets[slot];
+		try {
+			target.append(builder);
+			touched.put(target, Boolean.TRUE);
+		} catch (final IOException e) {
+			e.printStackTrace();
+		}
+		targets[slot] = null;
+		colors[slot] = null;
+		args[slot] = null;
+	}
+
+	/**
+	 * @param slot
+	 * @return - The arguments of the record, boxing its primitive ones, or null
+	 *         if it has none.
+	 */
+	private Object[] arguments(final int slot) {
+		if (args[slot] != null || argKinds[2 * slot] == NONE) {
+			return args[slot];
+		}
+		final int count = argKinds[2 * slot + 1] == NONE ? 1 : 2;
+		final Object[] boxed = new Object[count];
+		for (int a = 0; a < count; a++) {
+			final long value = argValues[2 * slot + a];
+			switch (argKinds[2 * slot + a]) {
+			case DOUBLE:
+				boxed[a] = Double.longBitsToDouble(value);
+				break;
+			case LONG:
+				boxed[a] = value;
+				break;
+			default:
+				boxed[a] = (int) value;
+				break;
+			}
+		}
+		return boxed;
+	}
+
+	private void waitUninterruptibly() {
+		try {
+			wait();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
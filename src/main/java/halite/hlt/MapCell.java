@@ -1,29 +1,21 @@
 package halite.hlt;
 
+/**
+ * A view of a single cell of the {@link GameMap}. The per-cell numeric data
+ * lives in the map's primitive arrays (indexed by {@link #index}); this class
+ * only forwards to them, so hot loops can work on the arrays directly.
+ */
 public class MapCell {
 	public final Position position;
-	public int halite;
+	public final int index;
 	public Ship ship;
 	public Entity structure;
-	private Double value;
-	private int mineableHaliteThisTurn;
-	private double surroundingHalite;
-	private double surroundingHaliteDensity;
-	private boolean inspirationEnabled;
-	private int numNearbyEnemies;
-	private int numNearbyAllies;
-	private Position nearestDropoff;
-
-	public MapCell(final Position position, final int halite) {
+	private final GameMap map;
+
+	MapCell(final GameMap map, final int index, final Position position) {
+		this.map = map;
+		this.index = index;
 		this.position = position;
-		this.halite = halite;
-		this.value = -1.0;
-		this.mineableHaliteThisTurn = (halite + 3) / 4;
-		this.surroundingHaliteDensity = this.halite;
-		this.surroundingHalite = this.halite;
-		this.inspirationEnabled = false;
-		this.numNearbyAllies = 0;
-		this.numNearbyEnemies = 0;
 	}
 
 	public boolean isEmpty() {
@@ -47,115 +39,101 @@ public class MapCell {
 	}
 
 	/**
-	 * @param value the value to set
-	 */
-	public void setValue(Double value) {
-		this.value = value;
-	}
-
-	/**
-	 * @return the value
+	 * @return the amount of halite on the cell
 	 */
-	public Double getValue() {
-		return value;
+	public int getHalite() {
+		return map.halite[index];
 	}
 
 	/**
 	 * @param mineableHaliteThisTurn the mineableHaliteThisTurn to set
 	 */
 	public void setMineableHaliteThisTurn(int mineableHaliteThisTurn) {
-		this.mineableHaliteThisTurn = mineableHaliteThisTurn;
+		map.mineableHaliteThisTurn[index] = mineableHaliteThisTurn;
 	}
 
 	/**
 	 * @return the mineableHaliteThisTurn
 	 */
 	public int getMineableHaliteThisTurn() {
-		return mineableHaliteThisTurn;
+		return map.mineableHaliteThisTurn[index];
 	}
 
 	/**
 	 * @param surroundingHaliteDensity the surroundingHalite to set
 	 */
 	public void setSurroundingHaliteDensity(double surroundingHaliteDensity) {
-		this.surroundingHaliteDensity = surroundingHaliteDensity;
+		map.surroundingHaliteDensity[index] = surroundingHaliteDensity;
 	}
 
 	/**
 	 * @return the surroundingHalite
 	 */
 	public double getSurroundingHaliteDensity() {
-		return surroundingHaliteDensity;
+		return map.surroundingHaliteDensity[index];
 	}
 
 	/**
 	 * @param surroundingHalite the surroundingHalite to set
 	 */
 	public void setSurroundingHalite(double surroundingHalite) {
-		this.surroundingHalite = surroundingHalite;
+		map.surroundingHalite[index] = surroundingHalite;
 	}
 
 	/**
 	 * @return The total amount of halite surrounding the cell.
 	 */
 	public double getSurroundingHalite() {
-		return surroundingHalite;
+		return map.surroundingHalite[index];
 	}
 
 	/**
 	 * @return the inspirationEnabled
 	 */
 	public boolean isInspirationEnabled() {
-		return inspirationEnabled;
+		return map.inspirationEnabled[index];
 	}
 
 	/**
 	 * @param inspirationEnabled the inspirationEnabled to set
 	 */
 	public void setInspirationEnabled(boolean inspirationEnabled) {
-		this.inspirationEnabled = inspirationEnabled;
+		map.inspirationEnabled[index] = inspirationEnabled;
 	}
 
 	/**
 	 * @param numNearbyEnemies the numNearbyEnemies to set
 	 */
 	public void setNumNearbyEnemies(int numNearbyEnemies) {
-		this.numNearbyEnemies = numNearbyEnemies;
+		map.numNearbyEnemies[index] = (short) numNearbyEnemies;
 	}
 
 	/**
 	 * @return the numNearbyEnemies
 	 */
 	public int getNumNearbyEnemies() {
-		return numNearbyEnemies;
+		return map.numNearbyEnemies[index];
 	}
 
 	/**
 	 * @param numNearbyAllies the numNearbyAllies to set
 	 */
 	public void setNumNearbyAllies(int numNearbyAllies) {
-		this.numNearbyAllies = numNearbyAllies;
+		map.numNearbyAllies[index] = (short) numNearbyAllies;
 	}
 
 	/**
 	 * @return the numNearbyAllies
 	 */
 	public int getNumNearbyAllies() {
-		return numNearbyAllies;
-	}
-
-	/**
-	 * @param nearestDropoff the nearestDropoff to set
-	 */
-	public void setNearestDropoff(Position nearestDropoff) {
-		this.nearestDropoff = nearestDropoff;
+		return map.numNearbyAllies[index];
 	}
 
 	/**
 	 * @return the nearestDropoff
 	 */
 	public Position getNearestDropoff() {
-		return nearestDropoff;
+		return map.cellAt[map.nearestDropoff[index]].position;
 	}
 
 	@Override
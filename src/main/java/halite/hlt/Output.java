@@ -0,0 +1,97 @@
+package halite.hlt;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the bot's messages to the engine. A turn's commands are encoded
+ * straight into a reusable byte buffer and written to the stream in one go.
+ */
+public class Output {
+	private final OutputStream out;
+	private byte[] buffer = new byte[1 << 12];
+	private int size;
+	// Scratch space for the digits of an integer, written backwards.
+	private final byte[] digits = new byte[11];
+
+	public Output(final OutputStream out) {
+		this.out = out;
+	}
+
+	/**
+	 * Writes a whole line (e.g. the bot's name).
+	 *
+	 * @param line
+	 */
+	public void writeLine(final String line) {
+		final byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+		ensureCapacity(bytes.length + 1);
+		System.arraycopy(bytes, 0, buffer, size, bytes.length);
+		size += bytes.length;
+		buffer[size++] = '\n';
+		flush();
+	}
+
+	/**
+	 * Adds a command to the current turn.
+	 *
+	 * @param command
+	 */
+	public void write(final Command command) {
+		// Type, id, direction and the separating spaces.
+		ensureCapacity(digits.length + 4);
+		buffer[size++] = (byte) command.type;
+		if (command.type != Command.SPAWN) {
+			buffer[size++] = ' ';
+			writeInt(command.shipId);
+			if (command.type == Command.MOVE) {
+				buffer[size++] = ' ';
+				buffer[size++] = (byte) command.direction;
+			}
+		}
+		buffer[size++] = ' ';
+	}
+
+	/**
+	 * Ends the current turn, sending its commands to the engine.
+	 */
+	public void endTurn() {
+		ensureCapacity(1);
+		buffer[size++] = '\n';
+		flush();
+	}
+
+	private void writeInt(int value) {
+		if (value < 0) {
+			buffer[size++] = '-';
+			value = -value;
+		}
+		int count = 0;
+		do {
+			digits[count++] = (byte) ('0' + value % 10);
+			value /= 10;
+		} while (value > 0);
+		while (count > 0) {
+			buffer[size++] = digits[--count];
+		}
+	}
+
+	private void ensureCapacity(final int extra) {
+		if (size + extra > buffer.length) {
+			buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, size + extra));
+		}
+	}
+
+	private void flush() {
+		try {
+			out.write(buffer, 0, size);
+			out.flush();
+		} catch (final IOException e) {
+			throw new IllegalStateException(e);
+		} finally {
+			size = 0;
+		}
+	}
+}
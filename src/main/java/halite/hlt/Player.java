@@ -1,39 +1,131 @@
 package halite.hlt;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * A player, and the ships and dropoffs it owns.
+ *
+ * Ships and dropoffs are kept from turn to turn: a ship that is still alive is
+ * updated in place, so its object (and its {@link Ship#slot}) can be used to
+ * keep state across turns. {@link #spawned}, {@link #destroyed} and
+ * {@link #newDropoffs} list what changed in the last update.
+ */
 public class Player {
 	public final PlayerId id;
 	public final Shipyard shipyard;
 	public int halite;
 	public final Map<EntityId, Ship> ships = new LinkedHashMap<>();
 	public final Map<EntityId, Dropoff> dropoffs = new LinkedHashMap<>();
+	/** The ships that appeared in the last update. */
+	public final List<Ship> spawned = new ArrayList<>();
+	/** The ships that disappeared in the last update (sunk or turned into dropoffs). */
+	public final List<Ship> destroyed = new ArrayList<>();
+	/** The dropoffs that appeared in the last update. */
+	public final List<Dropoff> newDropoffs = new ArrayList<>();
+
+	// The live ships, by entity id and by slot.
+	private Ship[] shipsById = new Ship[16];
+	private Ship[] shipsBySlot = new Ship[16];
+	private int slotCount;
+	private int[] freeSlots = new int[16];
+	private int freeSlotCount;
+	private Dropoff[] dropoffsById = new Dropoff[4];
+	private int updates;
 
 	private Player(final PlayerId id, final Shipyard shipyard) {
 		this.id = id;
 		this.shipyard = shipyard;
 	}
 
-	void _update(final int numShips, final int numDropoffs, final int halite) {
+	/**
+	 * @return - One more than the highest slot any ship of this player has had.
+	 */
+	public int slotCount() {
+		return slotCount;
+	}
+
+	/**
+	 * @param slot
+	 * @return - The live ship in the given slot, or null if there is none.
+	 */
+	public Ship shipInSlot(final int slot) {
+		return shipsBySlot[slot];
+	}
+
+	void _update(final Input input, final GameMap gameMap, final int numShips, final int numDropoffs,
+			final int halite) {
 		this.halite = halite;
+		updates++;
+		spawned.clear();
+		destroyed.clear();
+		newDropoffs.clear();
 
+		// Rebuilt so that the ships are listed in the order the engine sends them.
 		ships.clear();
 		for (int i = 0; i < numShips; ++i) {
-			final Ship ship = Ship._generate(id);
+			final int shipId = input.getInt();
+			final Position position = gameMap.at(input.getInt(), input.getInt()).position;
+			final int shipHalite = input.getInt();
+
+			if (shipId >= shipsById.length) {
+				shipsById = Arrays.copyOf(shipsById, Math.max(2 * shipsById.length, shipId + 1));
+			}
+			Ship ship = shipsById[shipId];
+			if (ship == null) {
+				ship = new Ship(id, new EntityId(shipId), position, shipHalite, allocateSlot());
+				shipsById[shipId] = ship;
+				shipsBySlot[ship.slot] = ship;
+				spawned.add(ship);
+			} else {
+				ship._update(position, shipHalite);
+			}
+			ship.lastSeen = updates;
 			ships.put(ship.id, ship);
 		}
+		for (int slot = 0; slot < slotCount; ++slot) {
+			final Ship ship = shipsBySlot[slot];
+			if (ship != null && ship.lastSeen != updates) {
+				destroyed.add(ship);
+				shipsById[ship.id.id] = null;
+				shipsBySlot[slot] = null;
+				freeSlots[freeSlotCount++] = slot;
+			}
+		}
 
-		dropoffs.clear();
+		// Dropoffs are never destroyed, so only new ones need to be added.
 		for (int i = 0; i < numDropoffs; ++i) {
-			final Dropoff dropoff = Dropoff._generate(id);
-			dropoffs.put(dropoff.id, dropoff);
+			final int dropoffId = input.getInt();
+			final int x = input.getInt();
+			final int y = input.getInt();
+
+			if (dropoffId >= dropoffsById.length) {
+				dropoffsById = Arrays.copyOf(dropoffsById, Math.max(2 * dropoffsById.length, dropoffId + 1));
+			}
+			if (dropoffsById[dropoffId] == null) {
+				final Dropoff dropoff = new Dropoff(id, new EntityId(dropoffId), gameMap.at(x, y).position);
+				dropoffsById[dropoffId] = dropoff;
+				dropoffs.put(dropoff.id, dropoff);
+				newDropoffs.add(dropoff);
+			}
 		}
 	}
 
-	static Player _generate() {
-		final Input input = Input.readInput();
+	private int allocateSlot() {
+		if (freeSlotCount > 0) {
+			return freeSlots[--freeSlotCount];
+		}
+		if (slotCount == shipsBySlot.length) {
+			shipsBySlot = Arrays.copyOf(shipsBySlot, 2 * slotCount);
+			freeSlots = Arrays.copyOf(freeSlots, 2 * slotCount);
+		}
+		return slotCount++;
+	}
 
+	static Player _generate(final Input input) {
 		final PlayerId playerId = new PlayerId(input.getInt());
 		final int shipyard_x = input.getInt();
 		final int shipyard_y = input.getInt();
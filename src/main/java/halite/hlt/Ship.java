@@ -1,12 +1,25 @@
 package halite.hlt;
 
+/**
+ * A ship. The same object represents the ship for its whole life: its position
+ * and halite are updated in place every turn.
+ */
 public class Ship extends Entity {
-	public final int halite;
+	public int halite;
+	/**
+	 * The ship's index among its owner's live ships, below
+	 * {@link Player#slotCount()}. Slots of destroyed ships are reused, so state
+	 * kept by slot must be cleared when a ship is {@link Player#destroyed}.
+	 */
+	public final int slot;
 	private boolean moved;
+	// The last update the ship was seen in.
+	int lastSeen;
 
-	public Ship(final PlayerId owner, final EntityId id, final Position position, final int halite) {
+	public Ship(final PlayerId owner, final EntityId id, final Position position, final int halite, final int slot) {
 		super(owner, id, position);
 		this.halite = halite;
+		this.slot = slot;
 		this.moved = false;
 	}
 
@@ -32,35 +45,22 @@ public class Ship extends Entity {
 		return this.moved;
 	}
 
-	static Ship _generate(final PlayerId playerId) {
-		final Input input = Input.readInput();
-
-		final EntityId shipId = new EntityId(input.getInt());
-		final int x = input.getInt();
-		final int y = input.getInt();
-		final int halite = input.getInt();
-
-		return new Ship(playerId, shipId, new Position(x, y), halite);
+	void _update(final Position position, final int halite) {
+		this.position = position;
+		this.halite = halite;
+		this.moved = false;
 	}
 
+	/**
+	 * Ships are mutable and unique, so they are only ever equal to themselves.
+	 */
 	@Override
 	public boolean equals(Object o) {
-		if (this == o)
-			return true;
-		if (o == null || getClass() != o.getClass())
-			return false;
-		if (!super.equals(o))
-			return false;
-
-		Ship ship = (Ship) o;
-
-		return halite == ship.halite;
+		return this == o;
 	}
 
 	@Override
 	public int hashCode() {
-		int result = super.hashCode();
-		result = 31 * result + halite;
-		return result;
+		return id.hashCode();
 	}
 }
@@ -0,0 +1,45 @@
+package halite.hlt;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * What a ship is currently doing, and which states it may move on to.
+ */
+public enum ShipState {
+	/** Looking for a cell to mine. */
+	EXPLORING,
+	/** Mining its current cell, or heading to its target cell. */
+	MINING,
+	/** Bringing its halite back to the nearest dropoff. */
+	RETURNING,
+	/** Heading home for good at the end of the game. */
+	FINAL_RUSH,
+	/** Heading to the site of a future dropoff. */
+	MAKE_DROPOFF,
+	/** At the site of a future dropoff, waiting for enough halite. */
+	WAITING_TO_CONSTRUCT;
+
+	static final ShipState[] VALUES = values();
+
+	private Set<ShipState> next;
+
+	static {
+		// Any ship can be sent home at the end of the game, and the ship nearest to a
+		// future dropoff is picked to build it whatever it was doing.
+		EXPLORING.next = EnumSet.of(EXPLORING, MINING, RETURNING, FINAL_RUSH, MAKE_DROPOFF);
+		MINING.next = EnumSet.of(EXPLORING, MINING, RETURNING, FINAL_RUSH, MAKE_DROPOFF);
+		RETURNING.next = EnumSet.of(RETURNING, EXPLORING, FINAL_RUSH, MAKE_DROPOFF);
+		FINAL_RUSH.next = EnumSet.of(FINAL_RUSH, MAKE_DROPOFF);
+		MAKE_DROPOFF.next = EnumSet.of(MAKE_DROPOFF, WAITING_TO_CONSTRUCT, EXPLORING, FINAL_RUSH);
+		WAITING_TO_CONSTRUCT.next = EnumSet.of(WAITING_TO_CONSTRUCT, EXPLORING, FINAL_RUSH, MAKE_DROPOFF);
+	}
+
+	/**
+	 * @param state
+	 * @return - True if a ship in this state may switch to the given state.
+	 */
+	public boolean canBecome(final ShipState state) {
+		return next.contains(state);
+	}
+}
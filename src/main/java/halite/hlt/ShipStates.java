@@ -0,0 +1,100 @@
+package halite.hlt;
+
+import java.util.Arrays;
+
+import halite.hlt.Log.Category;
+import halite.hlt.Log.Level;
+
+/**
+ * The {@link ShipState} of each of a player's ships, stored by
+ * {@link Ship#slot}, along with the number of ships in each state.
+ */
+public class ShipStates {
+	private static final byte NONE = -1;
+
+	private byte[] states = new byte[16];
+	private final int[] counts = new int[ShipState.VALUES.length];
+	private final boolean strict;
+
+	/**
+	 * @param strict - Throw on an illegal transition, instead of logging it and
+	 *               keeping the ship's state. Only for debug runs: an exception
+	 *               ends the bot, and with it the game.
+	 */
+	public ShipStates(final boolean strict) {
+		this.strict = strict;
+		Arrays.fill(states, NONE);
+	}
+
+	/**
+	 * @param ship
+	 * @return - The ship's state, or null if it hasn't been given one yet.
+	 */
+	public ShipState get(final Ship ship) {
+		if (ship.slot >= states.length || states[ship.slot] == NONE) {
+			return null;
+		}
+		return ShipState.VALUES[states[ship.slot]];
+	}
+
+	/**
+	 * @param ship
+	 * @param state
+	 * @return - True if the ship is in the given state.
+	 */
+	public boolean is(final Ship ship, final ShipState state) {
+		return ship.slot < states.length && states[ship.slot] == state.ordinal();
+	}
+
+	/**
+	 * Moves a ship to a new state. If the ship can't go from its current state to
+	 * the given one, it keeps its current state and a warning is logged.
+	 *
+	 * @param ship
+	 * @param state
+	 * @throws IllegalStateException if the transition is illegal and the states
+	 *                               are strict.
+	 */
+	public void set(final Ship ship, final ShipState state) {
+		if (ship.slot >= states.length) {
+			final int length = states.length;
+			states = Arrays.copyOf(states, Math.max(2 * length, ship.slot + 1));
+			Arrays.fill(states, length, states.length, NONE);
+		}
+		final byte current = states[ship.slot];
+		if (current != NONE) {
+			if (!ShipState.VALUES[current].canBecome(state)) {
+				if (strict) {
+					throw new IllegalStateException(
+							String.format("Ship %s can't go from %s to %s", ship.id, ShipState.VALUES[current], state));
+				}
+				Log.log(Level.WARN, Category.SHIP, "*** WARNING: Ship %s can't go from %s to %s ***", ship.id,
+						ShipState.VALUES[current], state);
+				return;
+			}
+			counts[current]--;
+		}
+		states[ship.slot] = (byte) state.ordinal();
+		counts[state.ordinal()]++;
+	}
+
+	/**
+	 * Forgets a ship that no longer exists.
+	 *
+	 * @param ship
+	 */
+	public void remove(final Ship ship) {
+		if (ship.slot < states.length && states[ship.slot] != NONE) {
+			counts[states[ship.slot]]--;
+			states[ship.slot] = NONE;
+		}
+	}
+
+	/**
+	 * @param state
+	 * @return - The number of ships in the given state.
+	 */
+	public int count(final ShipState state) {
+		return counts[state.ordinal()];
+	}
+}
@@ -0,0 +1,87 @@
+package halite.hlt;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorts lists like {@link List#sort(Comparator)} (stably, so the result is the
+ * same), but with working arrays that are kept from one sort to the next. The
+ * JDK's sort allocates its merge buffers on every call, which shows up on
+ * every turn.
+ *
+ * @param <T> - The type of the elements.
+ */
+public class StableSort<T> {
+	/** Runs shorter than this are sorted by insertion. */
+	private static final int RUN = 16;
+
+	private Object[] items = new Object[64];
+	private Object[] scratch = new Object[64];
+
+	/**
+	 * Sorts the list in place.
+	 *
+	 * @param list
+	 * @param comparator
+	 */
+	@SuppressWarnings("unchecked")
+	public void sort(final List<T> list, final Comparator<? super T> comparator) {
+		final int n = list.size();
+		if (n > items.length) {
+			items = new Object[Math.max(n, 2 * items.length)];
+			scratch = new Object[items.length];
+		}
+		for (int i = 0; i < n; i++) {
+			items[i] = list.get(i);
+		}
+
+		for (int start = 0; start < n; start += RUN) {
+			final int end = Math.min(start + RUN, n);
+			for (int i = start + 1; i < end; i++) {
+				final T item = (T) items[i];
+				int j = i;
+				while (j > start && comparator.compare((T) items[j - 1], item) > 0) {
+					items[j] = items[j - 1];
+					j--;
+				}
+				items[j] = item;
+			}
+		}
+		Object[] from = items;
+		Object[] to = scratch;
+		for (int width = RUN; width < n; width *= 2) {
+			for (int start = 0; start < n; start += 2 * width) {
+				merge(from, to, start, Math.min(start + width, n), Math.min(start + 2 * width, n), comparator);
+			}
+			final Object[] swap = from;
+			from = to;
+			to = swap;
+		}
+
+		for (int i = 0; i < n; i++) {
+			list.set(i, (T) from[i]);
+		}
+		// Let go of the elements.
+		Arrays.fill(items, 0, n, null);
+		Arrays.fill(scratch, 0, n, null);
+	}
+
+	/**
+	 * Merges the sorted runs [start, middle) and [middle, end) of from into to,
+	 * taking from the first run on ties.
+	 */
+	@SuppressWarnings("unchecked")
+	private void merge(final Object[] from, final Object[] to, final int start, final int middle, final int end,
+			final Comparator<? super T> comparator) {
+		int i = start;
+		int j = middle;
+		for (int k = start; k < end; k++) {
+			if (i < middle && (j == end || comparator.compare((T) from[i], (T) from[j]) <= 0)) {
+				to[k] = from[i++];
+			} else {
+				to[k] = from[j++];
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package halite.hlt;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The files {@link Input#record(OutputStream)} writes: the engine's messages
+ * exactly as the bot read them, gzipped if the file name ends with ".gz".
+ *
+ * A gzipped transcript is flushed as it is written, so one cut short by the
+ * engine killing the bot still reads up to where it stopped.
+ */
+public final class Transcript {
+	private Transcript() {
+	}
+
+	/**
+	 * @param path
+	 * @return - A stream writing a new transcript.
+	 * @throws IOException
+	 */
+	public static OutputStream create(final String path) throws IOException {
+		final OutputStream file = new FileOutputStream(path);
+		return path.endsWith(".gz") ? new GZIPOutputStream(file, true) : file;
+	}
+
+	/**
+	 * @param path
+	 * @return - A stream reading a transcript.
+	 * @throws IOException
+	 */
+	public static InputStream open(final String path) throws IOException {
+		final InputStream file = new FileInputStream(path);
+		if (!path.endsWith(".gz")) {
+			return file;
+		}
+		return new FilterInputStream(new GZIPInputStream(file)) {
+			@Override
+			public int read(final byte[] b, final int off, final int len) throws IOException {
+				try {
+					return super.read(b, off, len);
+				} catch (final EOFException e) {
+					// The bot was stopped before the file was finished.
+					return -1;
+				}
+			}
+		};
+	}
+}
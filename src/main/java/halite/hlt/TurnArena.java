@@ -0,0 +1,35 @@
+package halite.hlt;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Collections that only live for a single turn. They are cleared at the start
+ * of every turn and reused, so that a turn doesn't have to allocate (and later
+ * collect) new ones.
+ *
+ * Nothing in the arena may be kept past the end of the turn.
+ */
+public class TurnArena {
+	/** The commands to send at the end of the turn. */
+	public final ArrayList<Command> commands = new ArrayList<>();
+	/** The direction each ship wants to move in. */
+	public final HashMap<Ship, Direction> shipPaths = new HashMap<>();
+	/** A working list of ships. */
+	public final ArrayList<Ship> ships = new ArrayList<>();
+	/** A working list of cells. */
+	public final ArrayList<MapCell> cells = new ArrayList<>();
+	/** A working list of positions. */
+	public final ArrayList<Position> positions = new ArrayList<>();
+
+	/**
+	 * Empties every collection for a new turn.
+	 */
+	public void reset() {
+		commands.clear();
+		shipPaths.clear();
+		ships.clear();
+		cells.clear();
+		positions.clear();
+	}
+}
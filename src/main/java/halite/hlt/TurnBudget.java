@@ -0,0 +1,136 @@
+package halite.hlt;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Keeps track of how much of the turn's time has been used, so that every phase
+ * of the turn can stop early (returning its best answer so far) instead of
+ * blowing the engine's turn timeout.
+ *
+ * Each phase may be given an allotment: the phase must finish within that many
+ * milliseconds of starting it. Time left over by earlier phases is therefore
+ * available to later ones. No phase may run past the total turn limit.
+ */
+public class TurnBudget {
+	public enum Phase {
+		DENSITY, DROPOFFS, SCORING, ASSIGNMENT, NAVIGATION
+	}
+
+	/** The default total time limit for a turn, in ms. */
+	public static final double DEFAULT_TURN_LIMIT = 1_900;
+
+	private double turnLimit = DEFAULT_TURN_LIMIT;
+	private final Map<Phase, Double> allotments = new EnumMap<>(Phase.class);
+
+	private long turnStart;
+	private long turnDeadline;
+	private Phase phase;
+	private long phaseDeadline;
+
+	public TurnBudget() {
+		allotments.put(Phase.DENSITY, 200.0);
+		allotments.put(Phase.DROPOFFS, 100.0);
+		allotments.put(Phase.SCORING, 900.0);
+		allotments.put(Phase.ASSIGNMENT, 300.0);
+	}
+
+	/**
+	 * @param turnLimit - The total time limit for a turn, in ms.
+	 */
+	public void setTurnLimit(final double turnLimit) {
+		this.turnLimit = turnLimit;
+	}
+
+	/**
+	 * @param phase
+	 * @param allotment - The time limit for the phase, in ms.
+	 */
+	public void setAllotment(final Phase phase, final double allotment) {
+		allotments.put(phase, allotment);
+	}
+
+	/**
+	 * Parses an allotment of the form "phase=ms" (e.g. "scoring=800").
+	 *
+	 * @param allotment
+	 */
+	public void setAllotment(final String allotment) {
+		final String[] parts = allotment.split("=");
+		if (parts.length != 2) {
+			throw new IllegalArgumentException("Expected phase=ms, got " + allotment);
+		}
+		setAllotment(Phase.valueOf(parts[0].trim().toUpperCase()), Double.parseDouble(parts[1]));
+	}
+
+	/**
+	 * Starts a new turn.
+	 *
+	 * @param startTime - The timestamp (see {@link System#nanoTime()}) taken at
+	 *                  the beginning of the turn.
+	 */
+	public void startTurn(final long startTime) {
+		turnStart = startTime;
+		turnDeadline = startTime + toNanos(turnLimit);
+		phase = null;
+		phaseDeadline = turnDeadline;
+	}
+
+	/**
+	 * Starts the given phase of the turn.
+	 *
+	 * @param phase
+	 */
+	public void startPhase(final Phase phase) {
+		this.phase = phase;
+		final Double allotment = allotments.get(phase);
+		final long now = System.nanoTime();
+		phaseDeadline = turnDeadline;
+		if (allotment != null && now + toNanos(allotment) - turnDeadline < 0) {
+			phaseDeadline = now + toNanos(allotment);
+		}
+	}
+
+	/**
+	 * @return - The current phase, or null if none has been started this turn.
+	 */
+	public Phase phase() {
+		return phase;
+	}
+
+	/**
+	 * @return - The timestamp (see {@link System#nanoTime()}) by which the current
+	 *         phase must finish.
+	 */
+	public long phaseDeadline() {
+		return phaseDeadline;
+	}
+
+	/**
+	 * @return - True if the current phase has run out of time.
+	 */
+	public boolean phaseExpired() {
+		return System.nanoTime() - phaseDeadline >= 0;
+	}
+
+	/**
+	 * @return - True if the turn has run out of time.
+	 */
+	public boolean turnExpired() {
+		return System.nanoTime() - turnDeadline >= 0;
+	}
+
+	/**
+	 * @return - The time elapsed since the start of the turn, in ms.
+	 */
+	public double elapsed() {
+		return (System.nanoTime() - turnStart) / 1_000_000.0;
+	}
+
+	private static long toNanos(final double millis) {
+		if (Double.isInfinite(millis) || millis >= Long.MAX_VALUE / 4_000_000.0) {
+			return Long.MAX_VALUE / 4;
+		}
+		return (long) (millis * 1_000_000);
+	}
+}
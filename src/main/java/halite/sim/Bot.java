@@ -0,0 +1,19 @@
+package halite.sim;
+
+import halite.hlt.Input;
+import halite.hlt.Output;
+
+/**
+ * A bot that can be played in-process, over the same protocol it speaks to the
+ * engine.
+ */
+@FunctionalInterface
+public interface Bot {
+	/**
+	 * Plays a whole game, returning once the input is closed.
+	 *
+	 * @param input  - The engine's messages.
+	 * @param output - The bot's messages to the engine.
+	 */
+	void play(Input input, Output output);
+}
@@ -0,0 +1,125 @@
+package halite.sim;
+
+import java.util.Random;
+
+/**
+ * Generates symmetric maps in the style of the official engine: a tile of
+ * fractal value noise per player, mirrored around the middle of the map, with
+ * a shipyard in the middle of each tile.
+ *
+ * Two players split the map into a left and a right half; four players into
+ * quarters.
+ */
+public final class MapGenerator {
+	private MapGenerator() {
+	}
+
+	/**
+	 * @param rules
+	 * @param players - 2 or 4.
+	 * @param random
+	 * @return - The halite of every cell, indexed by y * width + x.
+	 */
+	public static int[] generate(final Rules rules, final int players, final Random random) {
+		checkPlayers(players);
+		final int tileWidth = rules.width / 2;
+		final int tileHeight = players == 4 ? rules.height / 2 : rules.height;
+		final double[] noise = noise(tileWidth, tileHeight, rules.persistence, rules.factorExp, random);
+
+		// Scale the tile so that its richest cell has a random amount of halite.
+		double max = 0;
+		for (int i = 0; i < noise.length; i++) {
+			noise[i] = Math.pow(noise[i], rules.factorExp);
+			max = Math.max(max, noise[i]);
+		}
+		final int richest = rules.minCellProduction
+				+ random.nextInt(rules.maxCellProduction - rules.minCellProduction + 1);
+
+		final int[] halite = new int[rules.width * rules.height];
+		for (int y = 0; y < rules.height; y++) {
+			final int ty = y < tileHeight ? y : rules.height - 1 - y;
+			for (int x = 0; x < rules.width; x++) {
+				final int tx = x < tileWidth ? x : rules.width - 1 - x;
+				halite[y * rules.width + x] = (int) Math.round(noise[ty * tileWidth + tx] / max * richest);
+			}
+		}
+		for (final int shipyard : shipyards(rules, players)) {
+			halite[shipyard] = 0;
+		}
+		return halite;
+	}
+
+	/**
+	 * @param rules
+	 * @param players - 2 or 4.
+	 * @return - The cell of each player's shipyard, indexed by player id.
+	 */
+	public static int[] shipyards(final Rules rules, final int players) {
+		checkPlayers(players);
+		final int tileWidth = rules.width / 2;
+		final int tileHeight = players == 4 ? rules.height / 2 : rules.height;
+		final int x = tileWidth / 2;
+		final int y = tileHeight / 2;
+		final int mirroredX = rules.width - 1 - x;
+		final int mirroredY = rules.height - 1 - y;
+		if (players == 2) {
+			return new int[] { y * rules.width + x, y * rules.width + mirroredX };
+		}
+		return new int[] { y * rules.width + x, y * rules.width + mirroredX, mirroredY * rules.width + x,
+				mirroredY * rules.width + mirroredX };
+	}
+
+	/**
+	 * Sums octaves of smoothly interpolated random grids, each twice as fine and
+	 * persistence times as strong as the last. The random values are raised to
+	 * the given exponent first.
+	 *
+	 * @return - Values in [0, 1], indexed by y * width + x.
+	 */
+	private static double[] noise(final int width, final int height, final double persistence,
+			final double exponent, final Random random) {
+		final double[] noise = new double[width * height];
+		double amplitude = 1;
+		double total = 0;
+		for (int frequency = 2; frequency <= Math.max(width, height); frequency *= 2) {
+			final double[] grid = new double[(frequency + 1) * (frequency + 1)];
+			for (int i = 0; i < grid.length; i++) {
+				grid[i] = Math.pow(random.nextDouble(), exponent);
+			}
+			for (int y = 0; y < height; y++) {
+				final double gy = (double) y * frequency / height;
+				final int y0 = (int) gy;
+				final double fy = smooth(gy - y0);
+				for (int x = 0; x < width; x++) {
+					final double gx = (double) x * frequency / width;
+					final int x0 = (int) gx;
+					final double fx = smooth(gx - x0);
+					final double top = lerp(grid[y0 * (frequency + 1) + x0], grid[y0 * (frequency + 1) + x0 + 1], fx);
+					final double bottom = lerp(grid[(y0 + 1) * (frequency + 1) + x0],
+							grid[(y0 + 1) * (frequency + 1) + x0 + 1], fx);
+					noise[y * width + x] += amplitude * lerp(top, bottom, fy);
+				}
+			}
+			total += amplitude;
+			amplitude *= persistence;
+		}
+		for (int i = 0; i < noise.length; i++) {
+			noise[i] /= total;
+		}
+		return noise;
+	}
+
+	private static double smooth(final double t) {
+		return t * t * (3 - 2 * t);
+	}
+
+	private static double lerp(final double a, final double b, final double t) {
+		return a + (b - a) * t;
+	}
+
+	private static void checkPlayers(final int players) {
+		if (players != 2 && players != 4) {
+			throw new IllegalArgumentException("Maps are generated for 2 or 4 players, not " + players);
+		}
+	}
+}
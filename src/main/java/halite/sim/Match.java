@@ -0,0 +1,277 @@
+package halite.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import halite.bot.MyBot;
+import halite.hlt.Input;
+import halite.hlt.Log;
+import halite.hlt.Output;
+
+/**
+ * Plays a game between bots running in this process, with the
+ * {@link Simulator} standing in for the engine.
+ *
+ * Each bot runs on its own thread and talks to the simulator through pipes,
+ * using the same {@link Input} and {@link Output} it uses with the engine. As
+ * with the engine, a bot that takes too long to answer is out of the game. The
+ * bots' logs are turned off for the length of the game, since they would all
+ * share the same one, and {@link #myBot} refuses the MyBot options that set the
+ * log up.
+ */
+public class Match {
+	/** How long to wait for a bot to return once the game is over. */
+	private static final long JOIN_MILLIS = 10_000;
+	/**
+	 * MyBot's options that would open or configure the log, which is shared by
+	 * every bot in the process.
+	 */
+	private static final List<String> LOG_OPTIONS = Arrays.asList("--local", "--log-level", "--log-categories");
+
+	/**
+	 * The outcome of a game.
+	 */
+	public static class Result {
+		public final long seed;
+		public final int width;
+		public final int height;
+		public final int turns;
+		/** The halite of each player at the end. */
+		public final int[] halite;
+		/** The players, best first. */
+		public final int[] ranking;
+		/** The turn each player went out of the game on, or -1. */
+		public final int[] crashTurn;
+		/** Why each player went out of the game, or null. */
+		public final String[] crashReason;
+		/** How long each player took to answer each turn, in ns. */
+		public final long[][] turnNanos;
+
+		Result(final Simulator simulator, final long[][] turnNanos) {
+			final int players = simulator.players;
+			this.seed = simulator.seed;
+			this.width = simulator.rules.width;
+			this.height = simulator.rules.height;
+			this.turns = simulator.turn();
+			this.halite = new int[players];
+			this.crashTurn = new int[players];
+			this.crashReason = new String[players];
+			for (int p = 0; p < players; p++) {
+				halite[p] = simulator.halite(p);
+				crashTurn[p] = simulator.crashTurn(p);
+				crashReason[p] = simulator.crashReason(p);
+			}
+			this.ranking = simulator.ranking();
+			this.turnNanos = turnNanos;
+		}
+
+		@Override
+		public String toString() {
+			final StringBuilder s = new StringBuilder();
+			s.append(String.format("Seed %d, %dx%d, %d players, %d turns", seed, width, height, halite.length, turns));
+			for (int i = 0; i < ranking.length; i++) {
+				final int p = ranking[i];
+				s.append(String.format("%n#%d: player %d with %d halite", i + 1, p, halite[p]));
+				if (crashReason[p] != null) {
+					s.append(String.format(" (out on turn %d: %s)", crashTurn[p], crashReason[p]));
+				}
+			}
+			return s.toString();
+		}
+	}
+
+	private final Rules rules;
+	private final long seed;
+	private final List<Bot> bots;
+	/** How long a bot has to answer the initial message (with its name). */
+	public long initTimeoutMillis = 30_000;
+	/** How long a bot has to answer a turn. */
+	public long turnTimeoutMillis = 2_000;
+
+	/**
+	 * @param rules - The size of the map and the constants of the game.
+	 * @param seed  - The seed of the map.
+	 * @param bots  - The players, by player id (2 or 4 of them).
+	 */
+	public Match(final Rules rules, final long seed, final List<Bot> bots) {
+		this.rules = rules;
+		this.seed = seed;
+		this.bots = bots;
+	}
+
+	/**
+	 * Plays the game to the end.
+	 *
+	 * @return - The outcome.
+	 */
+	public Result play() {
+		Log.suspend();
+		try {
+			return playGame();
+		} finally {
+			Log.resume();
+		}
+	}
+
+	private Result playGame() {
+		final int players = bots.size();
+		final Simulator simulator = new Simulator(rules, players, seed);
+		final Pipe[] toBotPipes = new Pipe[players];
+		final Pipe[] fromBotPipes = new Pipe[players];
+		final Output[] toBots = new Output[players];
+		final Input[] fromBots = new Input[players];
+		final Throwable[] errors = new Throwable[players];
+		final Thread[] threads = new Thread[players];
+		for (int p = 0; p < players; p++) {
+			final Pipe toBot = new Pipe();
+			final Pipe fromBot = new Pipe();
+			toBotPipes[p] = toBot;
+			fromBotPipes[p] = fromBot;
+			toBots[p] = new Output(toBot.out);
+			fromBots[p] = new Input(fromBot.in, false);
+
+			final Bot bot = bots.get(p);
+			final int player = p;
+			threads[p] = new Thread(() -> {
+				try {
+					bot.play(new Input(toBot.in, false), new Output(fromBot.out));
+				} catch (final RuntimeException | Error e) {
+					errors[player] = e;
+				} finally {
+					fromBot.close();
+				}
+			}, "bot-" + p);
+			threads[p].setDaemon(true);
+			threads[p].start();
+		}
+
+		for (int p = 0; p < players; p++) {
+			send(simulator, p, toBots[p], simulator.initMessage(p), errors);
+			fromBotPipes[p].setTimeout(initTimeoutMillis);
+		}
+		// The bots answer with their names.
+		for (int p = 0; p < players; p++) {
+			receive(simulator, p, fromBots[p], errors);
+		}
+
+		final String[] commands = new String[players];
+		final long[] sent = new long[players];
+		final long[][] turnNanos = new long[players][rules.maxTurns];
+		final int[] answered = new int[players];
+		while (!simulator.isOver()) {
+			final String frame = simulator.frame();
+			for (int p = 0; p < players; p++) {
+				sent[p] = System.nanoTime();
+				fromBotPipes[p].setTimeout(turnTimeoutMillis);
+				send(simulator, p, toBots[p], frame, errors);
+			}
+			for (int p = 0; p < players; p++) {
+				commands[p] = receive(simulator, p, fromBots[p], errors);
+				// The bots answer at once, but are read in turn: time their last write.
+				if (simulator.crashTurn(p) < 0) {
+					turnNanos[p][answered[p]++] = fromBotPipes[p].lastWrite() - sent[p];
+				}
+			}
+			simulator.step(commands);
+		}
+		for (int p = 0; p < players; p++) {
+			turnNanos[p] = Arrays.copyOf(turnNanos[p], answered[p]);
+		}
+
+		// Closing the input tells the bots the game is over.
+		for (final Pipe toBot : toBotPipes) {
+			toBot.close();
+		}
+		for (final Thread thread : threads) {
+			try {
+				thread.join(JOIN_MILLIS);
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return new Result(simulator, turnNanos);
+	}
+
+	private static void send(final Simulator simulator, final int player, final Output output, final String message,
+			final Throwable[] errors) {
+		if (simulator.crashTurn(player) >= 0) {
+			return;
+		}
+		try {
+			output.writeLine(message);
+		} catch (final IllegalStateException e) {
+			simulator.crash(player, reason(errors[player], e));
+		}
+	}
+
+	private static String receive(final Simulator simulator, final int player, final Input input,
+			final Throwable[] errors) {
+		if (simulator.crashTurn(player) >= 0) {
+			return "";
+		}
+		try {
+			return input.readLine();
+		} catch (final IllegalStateException e) {
+			simulator.crash(player, reason(errors[player], e));
+			return "";
+		}
+	}
+
+	private static String reason(final Throwable botError, final Exception e) {
+		if (botError != null) {
+			return "the bot threw " + botError;
+		}
+		return e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+	}
+
+	/**
+	 * @param args - MyBot's options.
+	 * @return - MyBot with the given options, to play in-process.
+	 * @throws IllegalArgumentException if an option would open or configure the
+	 *                                  log.
+	 */
+	public static Bot myBot(final String[] args) {
+		for (final String arg : args) {
+			if (LOG_OPTIONS.contains(arg)) {
+				throw new IllegalArgumentException(
+						arg + " can't be used with bots playing in-process: they share the log, which is turned off");
+			}
+		}
+		return (input, output) -> MyBot.play(args, input, output);
+	}
+
+	/**
+	 * Plays MyBot against itself.
+	 *
+	 * Options: --size N (default 32), --players 2|4 (default 2), --seed S
+	 * (default random). Any other option is passed on to every bot.
+	 *
+	 * @param args
+	 */
+	public static void main(final String[] args) {
+		// Nothing here logs: keep the log off for good, not only during the games.
+		Log.disable();
+		int size = 32;
+		int players = 2;
+		long seed = System.nanoTime();
+		final List<String> botArgs = new ArrayList<>();
+		for (int a = 0; a < args.length; a++) {
+			final String arg = args[a];
+			if (arg.equals("--size")) {
+				size = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--players")) {
+				players = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--seed")) {
+				seed = Long.parseLong(args[++a]);
+			} else {
+				botArgs.add(arg);
+			}
+		}
+		final Bot[] bots = new Bot[players];
+		Arrays.fill(bots, myBot(botArgs.toArray(new String[0])));
+
+		final Match.Result result = new Match(new Rules(size, size), seed, Arrays.asList(bots)).play();
+		System.out.println(result);
+	}
+}
@@ -0,0 +1,127 @@
+package halite.sim;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A one-way byte channel between two threads. Writing never blocks (the buffer
+ * grows instead), and reading can be given a deadline, so that the simulator
+ * can time out a bot that doesn't answer.
+ */
+final class Pipe {
+	private byte[] buffer = new byte[1 << 12];
+	// Bytes [head, tail) are waiting to be read.
+	private int head;
+	private int tail;
+	private boolean closed;
+	/** The {@link System#nanoTime()} reads give up at, if hasDeadline. */
+	private long deadline;
+	private boolean hasDeadline;
+	private long lastWrite;
+
+	final InputStream in = new InputStream() {
+		@Override
+		public int read() throws IOException {
+			final byte[] b = new byte[1];
+			return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+		}
+
+		@Override
+		public int read(final byte[] b, final int off, final int len) throws IOException {
+			return Pipe.this.read(b, off, len);
+		}
+	};
+
+	final OutputStream out = new OutputStream() {
+		@Override
+		public void write(final int b) throws IOException {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			Pipe.this.write(b, off, len);
+		}
+
+		@Override
+		public void close() {
+			Pipe.this.close();
+		}
+	};
+
+	/**
+	 * Makes reads fail once the given time has passed without anything to read.
+	 *
+	 * @param millis - From now.
+	 */
+	synchronized void setTimeout(final long millis) {
+		deadline = System.nanoTime() + millis * 1_000_000;
+		hasDeadline = true;
+	}
+
+	/**
+	 * @return - The {@link System#nanoTime()} of the last write.
+	 */
+	synchronized long lastWrite() {
+		return lastWrite;
+	}
+
+	/**
+	 * Ends the stream: reads return what is left, then -1.
+	 */
+	synchronized void close() {
+		closed = true;
+		notifyAll();
+	}
+
+	private synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+		if (closed) {
+			throw new IOException("Pipe closed");
+		}
+		if (tail + len > buffer.length) {
+			final int size = tail - head;
+			if (size + len > buffer.length) {
+				buffer = Arrays.copyOf(buffer, Math.max(2 * buffer.length, size + len));
+			}
+			System.arraycopy(buffer, head, buffer, 0, size);
+			head = 0;
+			tail = size;
+		}
+		System.arraycopy(b, off, buffer, tail, len);
+		tail += len;
+		lastWrite = System.nanoTime();
+		notifyAll();
+	}
+
+	private synchronized int read(final byte[] b, final int off, final int len) throws IOException {
+		if (len == 0) {
+			return 0;
+		}
+		while (head == tail) {
+			if (closed) {
+				return -1;
+			}
+			try {
+				if (hasDeadline) {
+					final long remaining = deadline - System.nanoTime();
+					if (remaining <= 0) {
+						throw new IOException("Timed out");
+					}
+					wait(Math.max(1, remaining / 1_000_000));
+				} else {
+					wait();
+				}
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException();
+			}
+		}
+		final int n = Math.min(len, tail - head);
+		System.arraycopy(buffer, head, b, off, n);
+		head += n;
+		return n;
+	}
+}
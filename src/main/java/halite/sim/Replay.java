@@ -0,0 +1,255 @@
+package halite.sim;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import halite.bot.MyBot;
+import halite.hlt.AllocationMeter;
+import halite.hlt.Input;
+import halite.hlt.Log;
+import halite.hlt.Output;
+import halite.hlt.Transcript;
+
+/**
+ * Plays a transcript recorded with MyBot's --record option back into MyBot,
+ * with no engine, and times every turn.
+ *
+ * The bot is given the recorded messages as they were, whatever it answers, so
+ * the game goes exactly as it went live. That makes any recorded game (e.g.
+ * one that timed out) a repeatable workload to run under a profiler, and lets
+ * the turn times of two versions of the bot be compared on the same turns.
+ *
+ * The whole transcript is read into memory first. A turn is timed from the
+ * bot's previous answer to its answer to the turn, so it includes reading the
+ * turn's message; the first entry is the pre-game work, up to the bot's name.
+ * The bytes the bot allocates are measured over the same spans, leaving out
+ * what the replay itself allocates to keep the answers.
+ */
+public class Replay {
+	/**
+	 * The time and the allocations of the pre-game work and then of each turn.
+	 */
+	public static class Turns {
+		/** How long each took, in ns. */
+		public final long[] nanos;
+		/** How many bytes the bot allocated in each. */
+		public final long[] bytes;
+
+		Turns(final long[] nanos, final long[] bytes) {
+			this.nanos = nanos;
+			this.bytes = bytes;
+		}
+	}
+
+	/**
+	 * Records when each message of the bot ends, and how much the bot had
+	 * allocated by then.
+	 */
+	private static final class TimedOutput extends OutputStream {
+		final ByteArrayOutputStream commands = new ByteArrayOutputStream();
+		final AllocationMeter meter = new AllocationMeter();
+		long[] answered = new long[1 << 9];
+		long[] bytes = new long[1 << 9];
+		int count;
+		// What the bot had allocated when its current message started.
+		long allocatedBefore;
+
+		@Override
+		public void write(final int b) {
+			write(new byte[] { (byte) b }, 0, 1);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			final long allocated = meter.allocated();
+			final long now = System.nanoTime();
+			final boolean answer = len > 0 && b[off + len - 1] == '\n';
+			if (answer && count == answered.length) {
+				answered = Arrays.copyOf(answered, 2 * count);
+				bytes = Arrays.copyOf(bytes, 2 * count);
+			}
+			commands.write(b, off, len);
+			if (answer) {
+				answered[count] = now;
+				bytes[count++] = allocated - allocatedBefore;
+				// Leave out what keeping the answer allocated.
+				allocatedBefore = meter.allocated();
+			} else {
+				allocatedBefore += meter.allocated() - allocated;
+			}
+		}
+	}
+
+	private final byte[] transcript;
+	private final String[] botArgs;
+
+	/**
+	 * @param transcript - The engine's messages, as recorded.
+	 * @param botArgs    - MyBot's options.
+	 */
+	public Replay(final byte[] transcript, final String[] botArgs) {
+		this.transcript = transcript;
+		this.botArgs = botArgs;
+	}
+
+	/**
+	 * Plays the transcript once, on the calling thread.
+	 *
+	 * @param commands - Where to write the bot's answers, or null.
+	 * @return - The time and the allocations of the pre-game work and each turn.
+	 */
+	public Turns play(final OutputStream commands) {
+		final TimedOutput output = new TimedOutput();
+		final Input input = new Input(new ByteArrayInputStream(transcript), false);
+		output.allocatedBefore = output.meter.allocated();
+		final long start = System.nanoTime();
+		try {
+			MyBot.play(botArgs, input, new Output(output));
+		} catch (final IllegalStateException e) {
+			// A transcript cut short by the engine ends in the middle of a turn.
+			System.err.printf("Stopped after %d turns: %s%n", Math.max(0, output.count - 1), e.getMessage());
+		}
+		final long[] nanos = new long[output.count];
+		for (int i = 0; i < nanos.length; i++) {
+			nanos[i] = output.answered[i] - (i == 0 ? start : output.answered[i - 1]);
+		}
+		final long[] bytes = Arrays.copyOf(output.bytes, output.count);
+		if (commands != null) {
+			try {
+				output.commands.writeTo(commands);
+			} catch (final IOException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return new Turns(nanos, bytes);
+	}
+
+	/**
+	 * Usage: Replay TRANSCRIPT [options] [MyBot options].
+	 *
+	 * Options: --repeat N plays the transcript N times and keeps each turn's
+	 * fastest time (default 1), --csv FILE writes the turn times, --baseline FILE
+	 * compares them with a --csv file of another run, --commands FILE writes the
+	 * bot's answers (from the last run) and --log keeps the bot's log (only with
+	 * a single run). Any other option is passed on to the bot.
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(final String[] args) throws IOException {
+		if (args.length == 0) {
+			throw new IllegalArgumentException("Usage: Replay TRANSCRIPT [options] [MyBot options]");
+		}
+		int repeat = 1;
+		String csv = null;
+		String baseline = null;
+		String commandsPath = null;
+		boolean log = false;
+		final List<String> botArgs = new ArrayList<>();
+		for (int a = 1; a < args.length; a++) {
+			final String arg = args[a];
+			if (arg.equals("--repeat")) {
+				repeat = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--csv")) {
+				csv = args[++a];
+			} else if (arg.equals("--baseline")) {
+				baseline = args[++a];
+			} else if (arg.equals("--commands")) {
+				commandsPath = args[++a];
+			} else if (arg.equals("--log")) {
+				log = true;
+			} else {
+				botArgs.add(arg);
+			}
+		}
+		if (log && repeat > 1) {
+			throw new IllegalArgumentException("--log only works with a single run");
+		}
+		if (!log) {
+			Log.disable();
+		}
+
+		final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+		try (InputStream in = Transcript.open(args[0])) {
+			final byte[] chunk = new byte[1 << 16];
+			for (int read; (read = in.read(chunk)) >= 0;) {
+				recorded.write(chunk, 0, read);
+			}
+		}
+		final Replay replay = new Replay(recorded.toByteArray(), botArgs.toArray(new String[0]));
+
+		long[] best = null;
+		long[] bytes = null;
+		for (int r = 0; r < repeat; r++) {
+			final boolean last = r == repeat - 1;
+			try (OutputStream commands = last && commandsPath != null ? new FileOutputStream(commandsPath) : null) {
+				final Turns turns = replay.play(commands);
+				if (best == null) {
+					best = turns.nanos;
+				}
+				for (int i = 0; i < Math.min(best.length, turns.nanos.length); i++) {
+					best[i] = Math.min(best[i], turns.nanos[i]);
+				}
+				// The last run's allocations, once the JIT has had the most time to warm up.
+				bytes = turns.bytes;
+			}
+		}
+
+		final long[] base = baseline == null ? null : readCsv(baseline);
+		if (csv != null) {
+			try (PrintStream out = new PrintStream(new FileOutputStream(csv), false, "US-ASCII")) {
+				out.println("turn,ms");
+				for (int i = 0; i < best.length; i++) {
+					out.printf("%d,%.3f%n", i, best[i] / 1e6);
+				}
+			}
+		}
+		report(best, bytes, base);
+	}
+
+	private static void report(final long[] nanos, final long[] bytes, final long[] base) {
+		System.out.printf("%-6s %10s %10s%s%n", "turn", "ms", "bytes",
+				base == null ? "" : String.format(" %10s %8s", "baseline", "ratio"));
+		for (int i = 0; i < nanos.length; i++) {
+			System.out.printf("%-6s %10.3f %10d", i == 0 ? "init" : Integer.toString(i), nanos[i] / 1e6, bytes[i]);
+			if (base != null && i < base.length) {
+				System.out.printf(" %10.3f %8.2f", base[i] / 1e6, (double) nanos[i] / Math.max(1, base[i]));
+			}
+			System.out.println();
+		}
+		System.out.printf("%nturns p50/p90/p99/max ms: %s", summary(nanos));
+		if (base != null) {
+			System.out.printf(" (baseline %s)", summary(base));
+		}
+		System.out.println();
+	}
+
+	/**
+	 * @return - The percentiles of the turn times, without the pre-game work.
+	 */
+	private static String summary(final long[] nanos) {
+		final long[] turns = Arrays.copyOfRange(nanos, Math.min(1, nanos.length), nanos.length);
+		Arrays.sort(turns);
+		return Tournament.percentiles(turns);
+	}
+
+	private static long[] readCsv(final String path) throws IOException {
+		final List<String> lines = Files.readAllLines(Paths.get(path), StandardCharsets.US_ASCII);
+		final long[] nanos = new long[lines.size() - 1];
+		for (int i = 1; i < lines.size(); i++) {
+			nanos[i - 1] = (long) (Double.parseDouble(lines.get(i).split(",")[1]) * 1e6);
+		}
+		return nanos;
+	}
+}
@@ -0,0 +1,87 @@
+package halite.sim;
+
+/**
+ * The constants of a Halite III game, with the official engine's defaults.
+ * These are the simulator's own copy: the bots read theirs from the constants
+ * line, as they would from the real engine.
+ */
+public class Rules {
+	public final int width;
+	public final int height;
+	public final int maxTurns;
+	public int initialHalite = 5_000;
+	public int shipCost = 1_000;
+	public int dropoffCost = 4_000;
+	public int maxShipHalite = 1_000;
+	public int extractRatio = 4;
+	public int moveCostRatio = 10;
+	public boolean inspirationEnabled = true;
+	public int inspirationRadius = 4;
+	public int inspirationShipCount = 2;
+	public int inspiredExtractRatio = 4;
+	public double inspiredBonusMultiplier = 2.0;
+	public int inspiredMoveCostRatio = 10;
+	/** The range of the richest cell's halite on a generated map. */
+	public int minCellProduction = 900;
+	public int maxCellProduction = 1_000;
+	/** How much each octave of the map noise contributes, relative to the last. */
+	public double persistence = 0.7;
+	/** The exponent applied to the map noise, making rich cells rarer. */
+	public double factorExp = 2.0;
+
+	/**
+	 * @param width
+	 * @param height
+	 */
+	public Rules(final int width, final int height) {
+		this.width = width;
+		this.height = height;
+		// The same number of turns the bot expects for the map size.
+		this.maxTurns = 300 + 25 * width / 8;
+	}
+
+	/**
+	 * @param seed - The seed the map was generated from.
+	 * @return - The constants line sent to the bots.
+	 */
+	public String constantsLine(final long seed) {
+		final StringBuilder line = new StringBuilder();
+		line.append('{');
+		append(line, "CAPTURE_ENABLED", "false");
+		append(line, "CAPTURE_RADIUS", 3);
+		append(line, "DEFAULT_MAP_HEIGHT", height);
+		append(line, "DEFAULT_MAP_WIDTH", width);
+		append(line, "DROPOFF_COST", dropoffCost);
+		append(line, "DROPOFF_PENALTY_RATIO", 4);
+		append(line, "EXTRACT_RATIO", extractRatio);
+		append(line, "FACTOR_EXP_1", factorExp);
+		append(line, "FACTOR_EXP_2", factorExp);
+		append(line, "INITIAL_ENERGY", initialHalite);
+		append(line, "INSPIRATION_ENABLED", inspirationEnabled);
+		append(line, "INSPIRATION_RADIUS", inspirationRadius);
+		append(line, "INSPIRATION_SHIP_COUNT", inspirationShipCount);
+		append(line, "INSPIRED_BONUS_MULTIPLIER", inspiredBonusMultiplier);
+		append(line, "INSPIRED_EXTRACT_RATIO", inspiredExtractRatio);
+		append(line, "INSPIRED_MOVE_COST_RATIO", inspiredMoveCostRatio);
+		append(line, "MAX_CELL_PRODUCTION", maxCellProduction);
+		append(line, "MAX_ENERGY", maxShipHalite);
+		append(line, "MAX_PLAYERS", 16);
+		append(line, "MAX_TURNS", maxTurns);
+		append(line, "MAX_TURN_THRESHOLD", 64);
+		append(line, "MIN_CELL_PRODUCTION", minCellProduction);
+		append(line, "MIN_TURNS", 400);
+		append(line, "MIN_TURN_THRESHOLD", 32);
+		append(line, "MOVE_COST_RATIO", moveCostRatio);
+		append(line, "NEW_ENTITY_ENERGY_COST", shipCost);
+		append(line, "PERSISTENCE", persistence);
+		append(line, "SHIPS_ABOVE_FOR_CAPTURE", 3);
+		append(line, "STRICT_ERRORS", false);
+		append(line, "game_seed", seed);
+		line.setCharAt(line.length() - 1, '}');
+		return line.toString();
+	}
+
+	private static void append(final StringBuilder line, final String key, final Object value) {
+		line.append('"').append(key).append("\":").append(value).append(',');
+	}
+}
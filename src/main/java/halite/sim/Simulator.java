@@ -0,0 +1,520 @@
+package halite.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * The rules of Halite III, played out without the official engine.
+ *
+ * The simulator produces the same messages the engine sends (see
+ * {@link #initMessage(int)} and {@link #frame()}) and takes the bots' command
+ * lines back through {@link #step(String[])}. Each turn is resolved in the
+ * engine's order:
+ * <ol>
+ * <li>ships turn into dropoffs,</li>
+ * <li>shipyards spawn ships,</li>
+ * <li>ships pay to move off their cell and move,</li>
+ * <li>ships that end up on the same cell sink, dropping their cargo (to the
+ * owner of the structure, if there is one),</li>
+ * <li>ships on their own structures drop off their cargo,</li>
+ * <li>ships that stayed still mine.</li>
+ * </ol>
+ * Ships are inspired by the positions they start the turn at. A bot that sends
+ * a malformed command, or a command for a ship it doesn't own, is out of the
+ * game; commands it can't afford are ignored, as in the engine.
+ */
+public class Simulator {
+	private static final int NONE = -1;
+
+	private static final class SimShip {
+		final int id;
+		final int owner;
+		int cell;
+		int halite;
+		char order;
+		boolean construct;
+		boolean moved;
+		boolean spawned;
+		boolean inspired;
+		boolean sunk;
+
+		SimShip(final int id, final int owner, final int cell) {
+			this.id = id;
+			this.owner = owner;
+			this.cell = cell;
+		}
+	}
+
+	public final Rules rules;
+	public final int players;
+	public final long seed;
+	private final int width;
+	private final int height;
+	private final int[] halite;
+	private final int[] shipyards;
+	/** The player owning the structure on each cell, or NONE. */
+	private final int[] structureOwner;
+	private final int[] bank;
+	private final List<List<SimShip>> ships = new ArrayList<>();
+	private final List<SimShip> shipsById = new ArrayList<>();
+	/** Each player's dropoffs, as {id, cell} pairs. */
+	private final List<List<int[]>> dropoffs = new ArrayList<>();
+	private int nextDropoffId;
+	private final int[] crashTurn;
+	private final String[] crashReason;
+	private int turn;
+
+	// The cells whose halite changed since the last frame.
+	private final boolean[] changed;
+	private final int[] changedCells;
+	private int changedCount;
+	// Scratch space for the number of ships on each cell.
+	private final int[] arrivals;
+
+	/**
+	 * @param rules
+	 * @param players - 2 or 4.
+	 * @param seed    - The seed of the map.
+	 */
+	public Simulator(final Rules rules, final int players, final long seed) {
+		this.rules = rules;
+		this.players = players;
+		this.seed = seed;
+		this.width = rules.width;
+		this.height = rules.height;
+		this.halite = MapGenerator.generate(rules, players, new Random(seed));
+		this.shipyards = MapGenerator.shipyards(rules, players);
+		this.structureOwner = new int[width * height];
+		Arrays.fill(structureOwner, NONE);
+		this.bank = new int[players];
+		this.crashTurn = new int[players];
+		this.crashReason = new String[players];
+		for (int p = 0; p < players; p++) {
+			structureOwner[shipyards[p]] = p;
+			bank[p] = rules.initialHalite;
+			crashTurn[p] = NONE;
+			ships.add(new ArrayList<>());
+			dropoffs.add(new ArrayList<>());
+		}
+		this.changed = new boolean[width * height];
+		this.changedCells = new int[width * height];
+		this.arrivals = new int[width * height];
+	}
+
+	/**
+	 * @param player
+	 * @return - The constants, players and map, as sent to the given player
+	 *         before the first turn.
+	 */
+	public String initMessage(final int player) {
+		final StringBuilder message = new StringBuilder();
+		message.append(rules.constantsLine(seed)).append('\n');
+		message.append(players).append(' ').append(player).append('\n');
+		for (int p = 0; p < players; p++) {
+			message.append(p).append(' ').append(shipyards[p] % width).append(' ').append(shipyards[p] / width)
+					.append('\n');
+		}
+		message.append(width).append(' ').append(height).append('\n');
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (x > 0) {
+					message.append(' ');
+				}
+				message.append(halite[y * width + x]);
+			}
+			message.append('\n');
+		}
+		// The line break is added when the message is written.
+		message.setLength(message.length() - 1);
+		return message.toString();
+	}
+
+	/**
+	 * @return - The state at the start of the next turn, as sent to every player.
+	 *         The changed cells are only sent once.
+	 */
+	public String frame() {
+		final StringBuilder message = new StringBuilder();
+		message.append(turn + 1).append('\n');
+		for (int p = 0; p < players; p++) {
+			final List<SimShip> playerShips = ships.get(p);
+			final List<int[]> playerDropoffs = dropoffs.get(p);
+			message.append(p).append(' ').append(playerShips.size()).append(' ').append(playerDropoffs.size())
+					.append(' ').append(bank[p]).append('\n');
+			for (final SimShip ship : playerShips) {
+				message.append(ship.id).append(' ').append(ship.cell % width).append(' ').append(ship.cell / width)
+						.append(' ').append(ship.halite).append('\n');
+			}
+			for (final int[] dropoff : playerDropoffs) {
+				message.append(dropoff[0]).append(' ').append(dropoff[1] % width).append(' ')
+						.append(dropoff[1] / width).append('\n');
+			}
+		}
+		message.append(changedCount);
+		for (int i = 0; i < changedCount; i++) {
+			final int cell = changedCells[i];
+			message.append('\n').append(cell % width).append(' ').append(cell / width).append(' ')
+					.append(halite[cell]);
+			changed[cell] = false;
+		}
+		changedCount = 0;
+		return message.toString();
+	}
+
+	/**
+	 * Plays a turn.
+	 *
+	 * @param commands - Each player's command line (ignored for players that are
+	 *                 out of the game).
+	 */
+	public void step(final String[] commands) {
+		turn++;
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				ship.order = 0;
+				ship.construct = false;
+				ship.moved = false;
+				ship.spawned = false;
+			}
+		}
+		final boolean[] spawn = new boolean[players];
+		for (int p = 0; p < players; p++) {
+			if (crashTurn[p] == NONE) {
+				spawn[p] = parse(p, commands[p]);
+			}
+		}
+		// Ships without a command stay still.
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				if (ship.order == 0) {
+					ship.order = 'o';
+				}
+			}
+		}
+		if (rules.inspirationEnabled) {
+			updateInspiration();
+		}
+
+		// Dropoffs.
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				if (!ship.construct || structureOwner[ship.cell] != NONE) {
+					continue;
+				}
+				final int cost = rules.dropoffCost - ship.halite - halite[ship.cell];
+				if (bank[ship.owner] < cost) {
+					continue;
+				}
+				bank[ship.owner] -= Math.max(0, cost);
+				structureOwner[ship.cell] = ship.owner;
+				dropoffs.get(ship.owner).add(new int[] { nextDropoffId++, ship.cell });
+				setHalite(ship.cell, 0);
+				ship.sunk = true;
+			}
+		}
+
+		// Spawns.
+		for (int p = 0; p < players; p++) {
+			if (spawn[p] && bank[p] >= rules.shipCost) {
+				bank[p] -= rules.shipCost;
+				final SimShip ship = new SimShip(shipsById.size(), p, shipyards[p]);
+				ship.order = 'o';
+				ship.spawned = true;
+				shipsById.add(ship);
+				ships.get(p).add(ship);
+			}
+		}
+
+		// Moves.
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				if (ship.sunk || ship.order == 'o') {
+					continue;
+				}
+				final int cost = halite[ship.cell]
+						/ (ship.inspired ? rules.inspiredMoveCostRatio : rules.moveCostRatio);
+				if (ship.halite >= cost) {
+					ship.halite -= cost;
+					ship.cell = neighbor(ship.cell, ship.order);
+					ship.moved = true;
+				}
+			}
+		}
+
+		// Collisions.
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				if (!ship.sunk) {
+					arrivals[ship.cell]++;
+				}
+			}
+		}
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				if (ship.sunk || arrivals[ship.cell] < 2) {
+					continue;
+				}
+				ship.sunk = true;
+				final int owner = structureOwner[ship.cell];
+				if (owner != NONE) {
+					bank[owner] += ship.halite;
+				} else {
+					setHalite(ship.cell, halite[ship.cell] + ship.halite);
+				}
+			}
+		}
+
+		// Dropping off and mining.
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				arrivals[ship.cell] = 0;
+				if (ship.sunk) {
+					continue;
+				}
+				if (structureOwner[ship.cell] == ship.owner) {
+					bank[ship.owner] += ship.halite;
+					ship.halite = 0;
+				} else if (!ship.moved && !ship.spawned) {
+					mine(ship);
+				}
+			}
+		}
+
+		for (final List<SimShip> playerShips : ships) {
+			playerShips.removeIf(ship -> ship.sunk);
+		}
+	}
+
+	/**
+	 * @return - True once the last turn has been played, or no one can do
+	 *         anything any more.
+	 */
+	public boolean isOver() {
+		if (turn >= rules.maxTurns) {
+			return true;
+		}
+		for (int p = 0; p < players; p++) {
+			if (crashTurn[p] == NONE && (!ships.get(p).isEmpty() || bank[p] >= rules.shipCost)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Takes a player out of the game (e.g. because its bot died). Its ships stay
+	 * on the map, but only ever stay still.
+	 *
+	 * @param player
+	 * @param reason
+	 */
+	public void crash(final int player, final String reason) {
+		if (crashTurn[player] == NONE) {
+			crashTurn[player] = turn;
+			crashReason[player] = reason;
+			for (final SimShip ship : ships.get(player)) {
+				ship.order = 'o';
+				ship.construct = false;
+			}
+		}
+	}
+
+	/**
+	 * @return - The number of turns played so far.
+	 */
+	public int turn() {
+		return turn;
+	}
+
+	/**
+	 * @param player
+	 * @return - The halite the player has banked.
+	 */
+	public int halite(final int player) {
+		return bank[player];
+	}
+
+	/**
+	 * @param player
+	 * @return - The number of ships the player has.
+	 */
+	public int shipCount(final int player) {
+		return ships.get(player).size();
+	}
+
+	/**
+	 * @param player
+	 * @return - The turn the player went out of the game on, or -1 if it hasn't.
+	 */
+	public int crashTurn(final int player) {
+		return crashTurn[player];
+	}
+
+	/**
+	 * @param player
+	 * @return - Why the player went out of the game, or null if it hasn't.
+	 */
+	public String crashReason(final int player) {
+		return crashReason[player];
+	}
+
+	/**
+	 * @return - The players, best first: those still in the game by halite, then
+	 *         the others by how long they lasted.
+	 */
+	public int[] ranking() {
+		final Integer[] order = new Integer[players];
+		for (int p = 0; p < players; p++) {
+			order[p] = p;
+		}
+		Arrays.sort(order, (a, b) -> {
+			final int lastTurnA = crashTurn[a] == NONE ? Integer.MAX_VALUE : crashTurn[a];
+			final int lastTurnB = crashTurn[b] == NONE ? Integer.MAX_VALUE : crashTurn[b];
+			if (lastTurnA != lastTurnB) {
+				return Integer.compare(lastTurnB, lastTurnA);
+			}
+			return Integer.compare(bank[b], bank[a]);
+		});
+		final int[] ranking = new int[players];
+		for (int i = 0; i < players; i++) {
+			ranking[i] = order[i];
+		}
+		return ranking;
+	}
+
+	/**
+	 * Reads a player's command line into the orders of its ships.
+	 *
+	 * @return - Whether the player spawns a ship.
+	 */
+	private boolean parse(final int player, final String line) {
+		boolean spawn = false;
+		final String[] tokens = line.trim().split("\\s+");
+		for (int i = 0; i < tokens.length; i++) {
+			switch (tokens[i]) {
+			case "":
+				break;
+			case "g":
+				if (spawn) {
+					crash(player, "spawned twice");
+					return false;
+				}
+				spawn = true;
+				break;
+			case "c":
+			case "m": {
+				final SimShip ship = i + 1 < tokens.length ? ship(player, tokens[i + 1]) : null;
+				if (ship == null || ship.order != 0) {
+					crash(player, "bad command for ship " + (i + 1 < tokens.length ? tokens[i + 1] : "?"));
+					return false;
+				}
+				if (tokens[i].equals("c")) {
+					ship.order = 'o';
+					ship.construct = true;
+					i++;
+				} else {
+					final String direction = i + 2 < tokens.length ? tokens[i + 2] : "";
+					if (direction.length() != 1 || "nsewo".indexOf(direction.charAt(0)) < 0) {
+						crash(player, "bad direction '" + direction + "' for ship " + ship.id);
+						return false;
+					}
+					ship.order = direction.charAt(0);
+					i += 2;
+				}
+				break;
+			}
+			default:
+				crash(player, "unknown command '" + tokens[i] + "'");
+				return false;
+			}
+		}
+		return spawn;
+	}
+
+	private SimShip ship(final int player, final String token) {
+		final int id;
+		try {
+			id = Integer.parseInt(token);
+		} catch (final NumberFormatException e) {
+			return null;
+		}
+		if (id < 0 || id >= shipsById.size()) {
+			return null;
+		}
+		final SimShip ship = shipsById.get(id);
+		return ship.owner == player && !ship.sunk ? ship : null;
+	}
+
+	/**
+	 * A ship is inspired if enough enemy ships are close to it.
+	 */
+	private void updateInspiration() {
+		for (final List<SimShip> playerShips : ships) {
+			for (final SimShip ship : playerShips) {
+				int enemies = 0;
+				for (final List<SimShip> otherShips : ships) {
+					if (otherShips == playerShips) {
+						continue;
+					}
+					for (final SimShip other : otherShips) {
+						if (distance(ship.cell, other.cell) <= rules.inspirationRadius) {
+							enemies++;
+						}
+					}
+				}
+				ship.inspired = enemies >= rules.inspirationShipCount;
+			}
+		}
+	}
+
+	private void mine(final SimShip ship) {
+		final int ratio = ship.inspired ? rules.inspiredExtractRatio : rules.extractRatio;
+		final int room = rules.maxShipHalite - ship.halite;
+		final int extracted = Math.min(room, (halite[ship.cell] + ratio - 1) / ratio);
+		if (extracted <= 0) {
+			return;
+		}
+		setHalite(ship.cell, halite[ship.cell] - extracted);
+		ship.halite += extracted;
+		if (ship.inspired) {
+			final int bonus = (int) (extracted * rules.inspiredBonusMultiplier);
+			ship.halite += Math.min(bonus, rules.maxShipHalite - ship.halite);
+		}
+	}
+
+	private void setHalite(final int cell, final int value) {
+		if (halite[cell] == value) {
+			return;
+		}
+		halite[cell] = value;
+		if (!changed[cell]) {
+			changed[cell] = true;
+			changedCells[changedCount++] = cell;
+		}
+	}
+
+	private int neighbor(final int cell, final char direction) {
+		final int x = cell % width;
+		final int y = cell / width;
+		switch (direction) {
+		case 'n':
+			return ((y + height - 1) % height) * width + x;
+		case 's':
+			return ((y + 1) % height) * width + x;
+		case 'e':
+			return y * width + (x + 1) % width;
+		case 'w':
+			return y * width + (x + width - 1) % width;
+		default:
+			return cell;
+		}
+	}
+
+	private int distance(final int a, final int b) {
+		final int dx = Math.abs(a % width - b % width);
+		final int dy = Math.abs(a / width - b / width);
+		return Math.min(dx, width - dx) + Math.min(dy, height - dy);
+	}
+}
@@ -0,0 +1,391 @@
+package halite.sim;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import halite.hlt.Log;
+
+/**
+ * Plays many self-play games across all cores and reports how each MyBot
+ * configuration did.
+ *
+ * Games cycle through the map sizes and player counts. Each map is played once
+ * per rotation of the configurations around the seats, so every configuration
+ * gets every seat on every map. Everything is seeded from a single seed, so a
+ * tournament can be replayed exactly (as long as no bot runs out of time).
+ *
+ * For each configuration, the report gives the win rate (with a Wilson score
+ * interval), the mean final halite (with a normal interval) and the
+ * percentiles of the time taken to answer a turn.
+ */
+public class Tournament {
+	/** The z-score of a 95% confidence interval. */
+	private static final double Z = 1.96;
+
+	/**
+	 * A named set of MyBot command line options.
+	 */
+	public static class Config {
+		public final String name;
+		public final String[] args;
+		private final Bot bot;
+
+		/**
+		 * @param name
+		 * @param args - MyBot's options.
+		 * @throws IllegalArgumentException if an option would open or configure
+		 *                                  the log (see {@link Match#myBot}).
+		 */
+		public Config(final String name, final String[] args) {
+			this.name = name;
+			this.args = args;
+			this.bot = Match.myBot(args);
+		}
+
+		/**
+		 * @param spec - "name=options", e.g. "fast=--threads 2".
+		 * @return - The configuration.
+		 */
+		public static Config parse(final String spec) {
+			final int equals = spec.indexOf('=');
+			final String name = equals < 0 ? spec : spec.substring(0, equals);
+			final String options = equals < 0 ? "" : spec.substring(equals + 1).trim();
+			return new Config(name, options.isEmpty() ? new String[0] : options.split("\\s+"));
+		}
+
+		Bot bot() {
+			return bot;
+		}
+
+		/**
+		 * @return - How many threads a bot of this configuration keeps busy: its own,
+		 *         or its scoring threads with --threads.
+		 */
+		int threads() {
+			int threads = 1;
+			for (int a = 0; a < args.length - 1; a++) {
+				if (args[a].equals("--threads")) {
+					threads = Math.max(1, Integer.parseInt(args[a + 1]));
+				}
+			}
+			return threads;
+		}
+	}
+
+	/**
+	 * A game to play: the map and which configuration sits in each seat.
+	 */
+	private static class Game {
+		final int size;
+		final long seed;
+		final int[] seats;
+
+		Game(final int size, final long seed, final int[] seats) {
+			this.size = size;
+			this.seed = seed;
+			this.seats = seats;
+		}
+	}
+
+	/**
+	 * The running totals of a configuration.
+	 */
+	private static class Stats {
+		int games;
+		int wins;
+		int crashes;
+		double halite;
+		double haliteSquared;
+		double rank;
+		long[] turnNanos = new long[1 << 12];
+		int turns;
+
+		void add(final Match.Result result, final int player) {
+			games++;
+			int rank = 0;
+			while (result.ranking[rank] != player) {
+				rank++;
+			}
+			if (rank == 0) {
+				wins++;
+			}
+			if (result.crashReason[player] != null) {
+				crashes++;
+			}
+			this.rank += rank + 1;
+			halite += result.halite[player];
+			haliteSquared += (double) result.halite[player] * result.halite[player];
+			final long[] nanos = result.turnNanos[player];
+			if (turns + nanos.length > turnNanos.length) {
+				turnNanos = Arrays.copyOf(turnNanos, Math.max(2 * turnNanos.length, turns + nanos.length));
+			}
+			System.arraycopy(nanos, 0, turnNanos, turns, nanos.length);
+			turns += nanos.length;
+		}
+	}
+
+	private final List<Config> configs;
+	private final int games;
+	private final int workers;
+	private final long seed;
+	private final int[] sizes;
+	private final int[] playerCounts;
+
+	/**
+	 * @param configs      - The configurations to compare.
+	 * @param games        - How many games to play.
+	 * @param workers      - How many games to play at once.
+	 * @param seed         - The seed every map seed is derived from.
+	 * @param sizes        - The map sizes to cycle through.
+	 * @param playerCounts - The player counts (2 and/or 4) to cycle through.
+	 */
+	public Tournament(final List<Config> configs, final int games, final int workers, final long seed,
+			final int[] sizes, final int[] playerCounts) {
+		this.configs = configs;
+		this.games = games;
+		this.workers = workers;
+		this.seed = seed;
+		this.sizes = sizes;
+		this.playerCounts = playerCounts;
+	}
+
+	/**
+	 * Plays every game and prints the report.
+	 */
+	public void run() {
+		final long start = System.nanoTime();
+		final ExecutorService pool = Executors.newFixedThreadPool(workers);
+		final List<Game> schedule = schedule();
+		final List<Future<Match.Result>> futures = new ArrayList<>();
+		for (final Game game : schedule) {
+			futures.add(pool.submit(() -> play(game)));
+		}
+
+		final Stats[] stats = new Stats[configs.size()];
+		// Wins per configuration, size and player count.
+		final int[][][] formatWins = new int[configs.size()][sizes.length][playerCounts.length];
+		final int[][][] formatGames = new int[configs.size()][sizes.length][playerCounts.length];
+		for (int c = 0; c < stats.length; c++) {
+			stats[c] = new Stats();
+		}
+		try {
+			for (int g = 0; g < schedule.size(); g++) {
+				final Game game = schedule.get(g);
+				final Match.Result result = futures.get(g).get();
+				final int format = formatOf(game);
+				for (int p = 0; p < game.seats.length; p++) {
+					final int c = game.seats[p];
+					stats[c].add(result, p);
+					formatGames[c][format / playerCounts.length][format % playerCounts.length]++;
+					if (result.ranking[0] == p) {
+						formatWins[c][format / playerCounts.length][format % playerCounts.length]++;
+					}
+				}
+				System.err.printf("Game %d/%d: %dx%d, %d players, seed %d, won by %s%n", g + 1, schedule.size(),
+						game.size, game.size, game.seats.length, game.seed, configs.get(game.seats[result.ranking[0]]).name);
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			pool.shutdownNow();
+		}
+
+		final double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d games, up to %d at once, in %.1f s (seed %d)%n%n", schedule.size(), workers, seconds,
+				seed);
+		System.out.printf("%-12s %6s %8s %-17s %9s %-19s %7s  %s%n", "config", "seats", "win rate", "(95% CI)",
+				"halite", "(95% CI)", "rank", "turn ms p50/p90/p99/max");
+		for (int c = 0; c < stats.length; c++) {
+			final Stats s = stats[c];
+			final double[] winRate = wilson(s.wins, s.games);
+			final double meanHalite = s.halite / s.games;
+			final double haliteError = Z * Math.sqrt(
+					Math.max(0, s.haliteSquared / s.games - meanHalite * meanHalite) / Math.max(1, s.games - 1));
+			final long[] nanos = Arrays.copyOf(s.turnNanos, s.turns);
+			Arrays.sort(nanos);
+			System.out.printf("%-12s %6d %7.1f%% [%5.1f%%, %5.1f%%] %9.0f [%7.0f, %7.0f] %7.2f  %s%s%n",
+					configs.get(c).name, s.games, 100.0 * s.wins / s.games, 100 * winRate[0], 100 * winRate[1],
+					meanHalite, meanHalite - haliteError, meanHalite + haliteError, s.rank / s.games,
+					percentiles(nanos), s.crashes > 0 ? "  (" + s.crashes + " crashed)" : "");
+		}
+
+		System.out.printf("%nWin rate by map:%n%-12s", "config");
+		for (final int size : sizes) {
+			for (final int players : playerCounts) {
+				System.out.printf(" %8s", size + "/" + players + "p");
+			}
+		}
+		System.out.println();
+		for (int c = 0; c < stats.length; c++) {
+			System.out.printf("%-12s", configs.get(c).name);
+			for (int i = 0; i < sizes.length; i++) {
+				for (int j = 0; j < playerCounts.length; j++) {
+					if (formatGames[c][i][j] == 0) {
+						System.out.printf(" %8s", "-");
+					} else {
+						System.out.printf(" %7.1f%%", 100.0 * formatWins[c][i][j] / formatGames[c][i][j]);
+					}
+				}
+			}
+			System.out.println();
+		}
+	}
+
+	/**
+	 * @return - Every game, in order. Map m uses the m-th size and player count
+	 *         in the cycle, and is played once per rotation of the seats.
+	 */
+	private List<Game> schedule() {
+		final List<Game> schedule = new ArrayList<>();
+		for (int g = 0; g < games; g++) {
+			final int map = g / configs.size();
+			final int rotation = g % configs.size();
+			final int size = sizes[map % sizes.length];
+			final int players = playerCounts[(map / sizes.length) % playerCounts.length];
+			final int[] seats = new int[players];
+			for (int p = 0; p < players; p++) {
+				seats[p] = (p + rotation) % configs.size();
+			}
+			// Spread the map seeds out, so that neighbouring tournaments don't share maps.
+			schedule.add(new Game(size, seed + map * 0x9E3779B97F4A7C15L, seats));
+		}
+		return schedule;
+	}
+
+	private int formatOf(final Game game) {
+		int i = 0;
+		while (sizes[i] != game.size) {
+			i++;
+		}
+		int j = 0;
+		while (playerCounts[j] != game.seats.length) {
+			j++;
+		}
+		return i * playerCounts.length + j;
+	}
+
+	private Match.Result play(final Game game) {
+		final List<Bot> bots = new ArrayList<>();
+		for (final int seat : game.seats) {
+			bots.add(configs.get(seat).bot());
+		}
+		return new Match(new Rules(game.size, game.size), game.seed, bots).play();
+	}
+
+	/**
+	 * @param wins
+	 * @param games
+	 * @return - The Wilson score interval of the win rate.
+	 */
+	static double[] wilson(final int wins, final int games) {
+		if (games == 0) {
+			return new double[] { 0, 1 };
+		}
+		final double p = (double) wins / games;
+		final double z2 = Z * Z;
+		final double center = (p + z2 / (2 * games)) / (1 + z2 / games);
+		final double half = Z * Math.sqrt(p * (1 - p) / games + z2 / (4.0 * games * games)) / (1 + z2 / games);
+		return new double[] { center - half, center + half };
+	}
+
+	/**
+	 * @return - The p50/p90/p99/max of the sorted times, in ms.
+	 */
+	static String percentiles(final long[] sorted) {
+		if (sorted.length == 0) {
+			return "-";
+		}
+		return String.format("%.2f/%.2f/%.2f/%.2f", percentile(sorted, 0.5) / 1e6, percentile(sorted, 0.9) / 1e6,
+				percentile(sorted, 0.99) / 1e6, sorted[sorted.length - 1] / 1e6);
+	}
+
+	/**
+	 * @return - The nearest-rank percentile of the sorted values.
+	 */
+	private static long percentile(final long[] sorted, final double fraction) {
+		final int rank = (int) Math.ceil(fraction * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	/**
+	 * Options: --games N (default 40), --workers N games at once (default: see
+	 * {@link #defaultWorkers}), --seed S (default 1), --sizes 32,40,48,56,64,
+	 * --players 2,4 and one --bot name=options per configuration (default: a
+	 * single "MyBot" with no options).
+	 *
+	 * @param args
+	 */
+	public static void main(final String[] args) {
+		// Nothing here logs: keep the log off for good, not only during the games.
+		Log.disable();
+		int games = 40;
+		int workers = -1;
+		long seed = 1;
+		int[] sizes = { 32, 40, 48, 56, 64 };
+		int[] playerCounts = { 2, 4 };
+		final List<Config> configs = new ArrayList<>();
+		for (int a = 0; a < args.length; a++) {
+			final String arg = args[a];
+			if (arg.equals("--games")) {
+				games = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--workers")) {
+				workers = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--seed")) {
+				seed = Long.parseLong(args[++a]);
+			} else if (arg.equals("--sizes")) {
+				sizes = parseInts(args[++a]);
+			} else if (arg.equals("--players")) {
+				playerCounts = parseInts(args[++a]);
+			} else if (arg.equals("--bot")) {
+				configs.add(Config.parse(args[++a]));
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+		if (configs.isEmpty()) {
+			configs.add(new Config("MyBot", new String[0]));
+		}
+		if (workers < 0) {
+			int players = 0;
+			for (final int count : playerCounts) {
+				players = Math.max(players, count);
+			}
+			int threads = 1;
+			for (final Config config : configs) {
+				threads = Math.max(threads, config.threads());
+			}
+			workers = defaultWorkers(players, threads);
+		}
+		new Tournament(configs, games, workers, seed, sizes, playerCounts).run();
+	}
+
+	/**
+	 * Every bot of a game runs at the same time, each on its own thread (or on
+	 * its --threads scoring threads), so playing a game per core would run
+	 * several bots per core and time them out.
+	 *
+	 * @param players    - The most players in a game.
+	 * @param botThreads - The most threads a bot keeps busy.
+	 * @return - How many games to play at once to keep one bot thread per core.
+	 */
+	static int defaultWorkers(final int players, final int botThreads) {
+		return Math.max(1, Runtime.getRuntime().availableProcessors() / (players * botThreads));
+	}
+
+	private static int[] parseInts(final String list) {
+		final String[] parts = list.split(",");
+		final int[] values = new int[parts.length];
+		for (int i = 0; i < parts.length; i++) {
+			values[i] = Integer.parseInt(parts[i].trim());
+		}
+		return values;
+	}
+}
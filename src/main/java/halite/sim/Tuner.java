@@ -0,0 +1,290 @@
+package halite.sim;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import halite.bot.Param;
+import halite.bot.Params;
+import halite.hlt.Log;
+
+/**
+ * Tunes the bot's {@link Param}s for one map size and player count with SPSA
+ * (simultaneous perturbation stochastic approximation), and writes them to the
+ * format's parameter file.
+ *
+ * Every parameter is scaled to [0, 1] over its range. Each iteration perturbs
+ * all of them at once by +/-c_k in a random direction, plays a batch of games
+ * between the two perturbed bots (on all cores, each map once per seat
+ * rotation), and steps along the direction by a_k times the difference in
+ * their share of the halite. The gains shrink as the standard exponents
+ * (0.602 and 0.101) prescribe, so the values settle as the noise averages out.
+ *
+ * The file is rewritten after every iteration, so a long run can be stopped at
+ * any point. The bot reads it with --params DIR, or from the jar once it is
+ * copied into src/main/resources/params.
+ */
+public class Tuner {
+	private final int size;
+	private final int players;
+	private final Param[] tuned;
+	private final int iterations;
+	private final int maps;
+	private final int workers;
+	private final long seed;
+	private final double step;
+	private final double perturbation;
+	private final String[] botArgs;
+
+	/**
+	 * @param size         - The width and height of the maps.
+	 * @param players      - 2 or 4.
+	 * @param tuned        - The parameters to tune; the rest keep their values.
+	 * @param iterations   - How many SPSA steps to take.
+	 * @param maps         - How many maps each step plays (once per seat rotation).
+	 * @param workers      - How many games to play at once.
+	 * @param seed         - The seed the maps and the directions are drawn from.
+	 * @param step         - a: the size of the first steps, in [0, 1] units.
+	 * @param perturbation - c: the size of the first perturbations, in [0, 1] units.
+	 * @param botArgs      - Other options to pass to both bots.
+	 */
+	public Tuner(final int size, final int players, final Param[] tuned, final int iterations, final int maps,
+			final int workers, final long seed, final double step, final double perturbation, final String[] botArgs) {
+		this.size = size;
+		this.players = players;
+		this.tuned = tuned;
+		this.iterations = iterations;
+		this.maps = maps;
+		this.workers = workers;
+		this.seed = seed;
+		this.step = step;
+		this.perturbation = perturbation;
+		this.botArgs = botArgs;
+	}
+
+	/**
+	 * Tunes the parameters, saving them after every iteration.
+	 *
+	 * @param start - The values to start from.
+	 * @param out   - The directory to write the format's file to.
+	 * @return - The tuned values.
+	 */
+	public Params run(final Params start, final Path out) {
+		final Random random = new Random(seed);
+		final double[] theta = new double[tuned.length];
+		for (int i = 0; i < tuned.length; i++) {
+			theta[i] = normalize(tuned[i], start.get(tuned[i]));
+		}
+		// The stability constant: the first tenth of the run takes smaller steps.
+		final double stability = iterations / 10.0;
+		final ExecutorService pool = Executors.newFixedThreadPool(workers);
+		Params current = start.copy();
+		try {
+			for (int k = 0; k < iterations; k++) {
+				final long iterationStart = System.nanoTime();
+				final double a = step / Math.pow(k + 1 + stability, 0.602);
+				final double c = perturbation / Math.pow(k + 1, 0.101);
+				final double[] delta = new double[tuned.length];
+				final double[] plus = new double[tuned.length];
+				final double[] minus = new double[tuned.length];
+				for (int i = 0; i < tuned.length; i++) {
+					delta[i] = random.nextBoolean() ? 1 : -1;
+					plus[i] = clamp(theta[i] + c * delta[i]);
+					minus[i] = clamp(theta[i] - c * delta[i]);
+				}
+				final Tournament.Config plusConfig = config("plus", with(start, plus));
+				final Tournament.Config minusConfig = config("minus", with(start, minus));
+
+				final double score = play(pool, k, plusConfig, minusConfig);
+				for (int i = 0; i < tuned.length; i++) {
+					// The gradient estimate is the score over the difference in the parameter:
+					// +/-2c, unless clamping at the end of the range shrank it.
+					final double spread = plus[i] - minus[i];
+					if (spread != 0) {
+						theta[i] = clamp(theta[i] + a * score / spread);
+					}
+				}
+				current = with(start, theta);
+				final Path file = current.save(out,
+						String.format("Tuned by SPSA for %dx%d %dp: %d/%d iterations of %d maps, seed %d", size, size,
+								players, k + 1, iterations, maps, seed));
+				System.err.printf("Iteration %d/%d (%.1f s): plus - minus share %+.3f; wrote %s%n  %s%n", k + 1,
+						iterations, (System.nanoTime() - iterationStart) / 1e9, score, file, describe(current));
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+		return current;
+	}
+
+	/**
+	 * Plays every map of an iteration once per seat rotation.
+	 *
+	 * @return - The mean over the games of the plus seats' share of the final
+	 *         halite minus the minus seats' share, in [-1, 1].
+	 */
+	private double play(final ExecutorService pool, final int iteration, final Tournament.Config plusConfig,
+			final Tournament.Config minusConfig) {
+		final List<Future<Double>> futures = new ArrayList<>();
+		for (int m = 0; m < maps; m++) {
+			// Fresh maps every iteration, spread out like the tournament's.
+			final long mapSeed = seed + ((long) iteration * maps + m) * 0x9E3779B97F4A7C15L;
+			for (int rotation = 0; rotation < 2; rotation++) {
+				final boolean[] isPlus = new boolean[players];
+				final List<Bot> bots = new ArrayList<>();
+				for (int p = 0; p < players; p++) {
+					isPlus[p] = (p + rotation) % 2 == 0;
+					bots.add((isPlus[p] ? plusConfig : minusConfig).bot());
+				}
+				futures.add(pool.submit(() -> share(new Match(new Rules(size, size), mapSeed, bots).play(), isPlus)));
+			}
+		}
+		double total = 0;
+		try {
+			for (final Future<Double> future : futures) {
+				total += future.get();
+			}
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (final ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		}
+		return total / futures.size();
+	}
+
+	private static double share(final Match.Result result, final boolean[] isPlus) {
+		double plus = 0;
+		double all = 0;
+		for (int p = 0; p < isPlus.length; p++) {
+			all += result.halite[p];
+			if (isPlus[p]) {
+				plus += result.halite[p];
+			}
+		}
+		return all == 0 ? 0 : (2 * plus - all) / all;
+	}
+
+	/**
+	 * @return - A bot that is given every parameter explicitly, so it doesn't
+	 *         matter which parameter files it would find.
+	 */
+	private Tournament.Config config(final String name, final Params params) {
+		final List<String> args = new ArrayList<>(Arrays.asList(botArgs));
+		for (final Param param : Param.values()) {
+			args.add("--param");
+			args.add(param.name() + "=" + params.get(param));
+		}
+		return new Tournament.Config(name, args.toArray(new String[0]));
+	}
+
+	private Params with(final Params start, final double[] normalized) {
+		final Params params = start.copy();
+		for (int i = 0; i < tuned.length; i++) {
+			params.set(tuned[i], tuned[i].min + normalized[i] * (tuned[i].max - tuned[i].min));
+		}
+		return params;
+	}
+
+	private String describe(final Params params) {
+		final StringBuilder s = new StringBuilder();
+		for (final Param param : tuned) {
+			s.append(s.length() == 0 ? "" : ", ").append(param.name()).append('=');
+			s.append(param.integer ? Integer.toString(params.getInt(param)) : String.format("%.4f", params.get(param)));
+		}
+		return s.toString();
+	}
+
+	private static double normalize(final Param param, final double value) {
+		return (value - param.min) / (param.max - param.min);
+	}
+
+	private static double clamp(final double x) {
+		return Math.max(0, Math.min(1, x));
+	}
+
+	/**
+	 * Options: --size N (default 32), --players 2|4 (default 2), --tune
+	 * NAME,NAME,... (default: every parameter), --iterations N (default 100),
+	 * --maps N per iteration (default: the number of workers), --workers N games
+	 * at once (default: one bot thread per core, see
+	 * {@link Tournament#defaultWorkers}), --seed S (default 1), --step A (default
+	 * 0.1), --perturbation C (default 0.1), --from DIR (start from the format's
+	 * file in DIR; default: the bot's own values), --out DIR (default "params")
+	 * and --bot "options" for anything else to pass to the bots.
+	 *
+	 * @param args
+	 */
+	public static void main(final String[] args) {
+		// Nothing here logs: keep the log off for good, not only during the games.
+		Log.disable();
+		int size = 32;
+		int players = 2;
+		Param[] tuned = Param.values();
+		int iterations = 100;
+		int workers = -1;
+		int maps = -1;
+		long seed = 1;
+		double step = 0.1;
+		double perturbation = 0.1;
+		String from = null;
+		String out = "params";
+		String[] botArgs = new String[0];
+		for (int a = 0; a < args.length; a++) {
+			final String arg = args[a];
+			if (arg.equals("--size")) {
+				size = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--players")) {
+				players = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--tune")) {
+				final String[] names = args[++a].split(",");
+				tuned = new Param[names.length];
+				for (int i = 0; i < names.length; i++) {
+					tuned[i] = Param.valueOf(names[i].trim());
+				}
+			} else if (arg.equals("--iterations")) {
+				iterations = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--maps")) {
+				maps = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--workers")) {
+				workers = Integer.parseInt(args[++a]);
+			} else if (arg.equals("--seed")) {
+				seed = Long.parseLong(args[++a]);
+			} else if (arg.equals("--step")) {
+				step = Double.parseDouble(args[++a]);
+			} else if (arg.equals("--perturbation")) {
+				perturbation = Double.parseDouble(args[++a]);
+			} else if (arg.equals("--from")) {
+				from = args[++a];
+			} else if (arg.equals("--out")) {
+				out = args[++a];
+			} else if (arg.equals("--bot")) {
+				final String options = args[++a].trim();
+				botArgs = options.isEmpty() ? new String[0] : options.split("\\s+");
+			} else {
+				throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+		if (players != 2 && players != 4) {
+			throw new IllegalArgumentException("Games have 2 or 4 players, not " + players);
+		}
+		if (workers < 0) {
+			workers = Tournament.defaultWorkers(players, new Tournament.Config("bot", botArgs).threads());
+		}
+		if (maps < 0) {
+			maps = workers;
+		}
+		final Params start = Params.load(size, players, from);
+		System.err.printf("Tuning %dx%d %dp, %d games at once, from %s%n", size, size, players, workers, start);
+		final Params tunedParams = new Tuner(size, players, tuned, iterations, maps, workers, seed, step, perturbation,
+				botArgs).run(start, Paths.get(out));
+		System.out.println(tunedParams);
+	}
+}
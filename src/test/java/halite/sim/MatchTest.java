@@ -0,0 +1,43 @@
+package halite.sim;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import halite.hlt.Log;
+import halite.hlt.Log.Category;
+
+public class MatchTest {
+	@AfterClass
+	public static void disableLog() {
+		// Nothing was logged: don't leave a log file behind at exit.
+		Log.disable();
+	}
+
+	@Test
+	public void theLogIsOffOnlyDuringTheGame() {
+		final Bot bot = Match.myBot(new String[0]);
+		final boolean[] loggedDuringGame = { true };
+		final Bot watcher = (input, output) -> {
+			loggedDuringGame[0] = Log.enabled(Category.GAME);
+			bot.play(input, output);
+		};
+		new Match(new Rules(32, 32), 1, Arrays.asList(watcher, bot)).play();
+		assertFalse("The log was on during the game", loggedDuringGame[0]);
+		assertTrue("The log stayed off after the game", Log.enabled(Category.GAME));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void localIsRefused() {
+		Match.myBot(new String[] { "--debug", "--local" });
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void logLevelIsRefused() {
+		new Tournament.Config("verbose", new String[] { "--log-level", "debug" });
+	}
+}
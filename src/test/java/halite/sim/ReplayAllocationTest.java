@@ -0,0 +1,69 @@
+package halite.sim;
+
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import halite.hlt.Log;
+
+/**
+ * Plays a recorded game (32x32, 2 players, 400 turns) back into MyBot and
+ * checks how much each turn allocates, from reading the frame to sending the
+ * commands, once the game and the JIT have warmed up.
+ */
+public class ReplayAllocationTest {
+	private static final String TRANSCRIPT = "g32x2.hlt.gz";
+	/** The turns left out while the bot's reusable buffers grow. */
+	private static final int WARMUP_TURNS = 20;
+	/** The runs before the measured one, to let the JIT compile the bot. */
+	private static final int WARMUP_RUNS = 2;
+	/** The most any turn may allocate (the turns allocate up to about 30 KB). */
+	private static final long TURN_BUDGET = 64 * 1024;
+	/** The most the turns may allocate in the middle (about 6 KB). */
+	private static final long MEDIAN_BUDGET = 16 * 1024;
+
+	private static byte[] transcript;
+
+	@BeforeClass
+	public static void readTranscript() throws IOException {
+		Log.disable();
+		final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+		try (InputStream in = new GZIPInputStream(ReplayAllocationTest.class.getResourceAsStream(TRANSCRIPT))) {
+			final byte[] chunk = new byte[1 << 16];
+			for (int read; (read = in.read(chunk)) >= 0;) {
+				recorded.write(chunk, 0, read);
+			}
+		}
+		transcript = recorded.toByteArray();
+	}
+
+	@Test
+	public void turnsStayWithinTheAllocationBudget() {
+		final Replay replay = new Replay(transcript, new String[0]);
+		for (int r = 0; r < WARMUP_RUNS; r++) {
+			replay.play(null);
+		}
+		final Replay.Turns turns = replay.play(null);
+		// The pre-game work, and then one entry per turn.
+		assertTrue("Only " + turns.bytes.length + " turns were played", turns.bytes.length > 2 * WARMUP_TURNS);
+
+		final long[] bytes = new long[turns.bytes.length - 1 - WARMUP_TURNS];
+		for (int i = 0; i < bytes.length; i++) {
+			final long allocated = turns.bytes[1 + WARMUP_TURNS + i];
+			assertTrue(String.format("Turn %d allocated %d bytes, over the budget of %d", 1 + WARMUP_TURNS + i,
+					allocated, TURN_BUDGET), allocated <= TURN_BUDGET);
+			bytes[i] = allocated;
+		}
+		Arrays.sort(bytes);
+		final long median = bytes[bytes.length / 2];
+		assertTrue(String.format("The turns allocated %d bytes in the middle, over the budget of %d", median,
+				MEDIAN_BUDGET), median <= MEDIAN_BUDGET);
+	}
+}